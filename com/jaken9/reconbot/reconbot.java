@@ -3,7 +3,10 @@ package com.jaken9.reconbot;
 import java.io.PrintStream;
 import java.net.Proxy;
 import java.util.Arrays;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
 import org.spacehq.mc.auth.exception.request.RequestException;
+import org.spacehq.mc.protocol.MinecraftClientSupervisor;
 import org.spacehq.mc.protocol.MinecraftProtocol;
 import org.spacehq.mc.protocol.data.SubProtocol;
 import org.spacehq.mc.protocol.data.message.Message;
@@ -14,9 +17,10 @@ import org.spacehq.mc.protocol.data.status.handler.ServerPingTimeHandler;
 import org.spacehq.mc.protocol.packet.ingame.server.ServerChatPacket;
 import org.spacehq.packetlib.Client;
 import org.spacehq.packetlib.Session;
+import org.spacehq.packetlib.SessionInitializer;
 import org.spacehq.packetlib.event.session.ConnectedEvent;
 import org.spacehq.packetlib.event.session.DisconnectedEvent;
-import org.spacehq.packetlib.event.session.PacketReceivedEvent;
+import org.spacehq.packetlib.packet.PacketHandler;
 import org.spacehq.packetlib.tcp.TcpSessionFactory;
 
 public class reconbot
@@ -64,26 +68,19 @@ public class reconbot
     });
 	// Makes the client connect to the server.
     client.getSession().connect();
-    while (client.getSession().isConnected()) {
-      try
-      {
-		  // This script was written for a raspberry pi, this code helped it cope for some strange reason.
-        Thread.sleep(10L);
-      }
-      catch (InterruptedException e)
-      {
-        e.printStackTrace();
-      }
-    }
+	// Wait for the status exchange to finish without busy-waiting on the pi.
+    client.getSession().getDisconnectFuture().awaitUninterruptibly();
   }
   
   private static void login()
   {
+    String username = "INSERT USERNAME HERE";
+    String password = "INSERT PASSWORD HERE";
     MinecraftProtocol protocol = null;
     try
     {
 		// Authenticates the bot with minecraft.net
-      protocol = new MinecraftProtocol("INSERT USERNAME HERE", "INSERT PASSWORD HERE", false);
+      protocol = new MinecraftProtocol(username, password, false);
       System.out.println("Bot > Authenticated bot.");
     }
     catch (RequestException e)
@@ -91,60 +88,64 @@ public class reconbot
       e.printStackTrace();
       return;
     }
-	// creates a connection to the server.
-    Client client = new Client("mc.snapcraft.net", 25565, protocol, new TcpSessionFactory(PROXY));
-    client.getSession().setFlag("auth-proxy", AUTH_PROXY);
-    client.getSession().addListener(new org.spacehq.packetlib.event.session.SessionAdapter()
+	// creates a supervisor that reconnects to the server whenever the bot is disconnected,
+	// reusing the profile and access token from above instead of logging in again.
+    MinecraftClientSupervisor supervisor = new MinecraftClientSupervisor("mc.snapcraft.net", 25565, protocol, new TcpSessionFactory(PROXY));
+	// if minecraft.net expires the access token the supervisor refreshes it, logging in with these again if it has to.
+    supervisor.setCredentials(username, password);
+    supervisor.setSessionInitializer(new SessionInitializer()
     {
-      public void packetReceived(PacketReceivedEvent event)
+      public void initSession(Session session)
       {
-        if ((event.getPacket() instanceof ServerChatPacket))
+        session.setFlag("auth-proxy", AUTH_PROXY);
+		// only decode chat packets, everything else (chunks, entities...) is skipped unread.
+        session.setPacketFiltering(true);
+        session.on(ServerChatPacket.class, new PacketHandler<ServerChatPacket>()
         {
-			// if instance of a chat packet is recieved print it out to the console.
-          Message message = ((ServerChatPacket)event.getPacket()).getMessage();
-          System.out.println(message.getFullText());
-        }
-      }
-      
-      public void disconnected(DisconnectedEvent event)
-      {
-		  // Print the reason for disconnection in the case of a disconnect.
-        System.out.println("Disconnected: " + Message.fromString(event.getReason()).getFullText());
-        if (event.getCause() != null) {
-          event.getCause().printStackTrace();
-        }
-      }
-      
-      public void connected(ConnectedEvent event)
-      {
-		  // Create a new thread for anti-afking.
-        final Session session = event.getSession();
-        Thread thread = new Thread()
+          public void handle(Session session, ServerChatPacket packet)
+          {
+			  // when a chat packet is recieved print it out to the console.
+            System.out.println(packet.getMessage().getFullText());
+          }
+        });
+        ((MinecraftProtocol)session.getPacketProtocol()).getLoginFuture().addListener(new FutureListener<Session>()
         {
-          public void run()
+          public void operationComplete(Future<Session> future)
           {
-            for (;;)
+            if (future.isSuccess()) {
+              System.out.println("Bot > Logged in.");
+            }
+          }
+        });
+        session.addListener(new org.spacehq.packetlib.event.session.SessionAdapter()
+        {
+          public void disconnected(DisconnectedEvent event)
+          {
+			  // Print the reason for disconnection in the case of a disconnect.
+            System.out.println("Disconnected: " + Message.fromString(event.getReason()).getFullText());
+            if (event.getCause() != null) {
+              event.getCause().printStackTrace();
+            }
+          }
+          
+          public void connected(ConnectedEvent event)
+          {
+			  // Schedule the anti-afk command on the session, it is cancelled automatically on disconnect.
+            final Session session = event.getSession();
+            session.schedule(new Runnable()
             {
-              try
-              {
-				  // wait 40 seconds to prevent spam.
-                sleep(40000L);
-              }
-              catch (InterruptedException e)
+              public void run()
               {
-                e.printStackTrace();
+				  // make the bot go back to the factions server every 40 seconds.
+                System.out.println("Bot > Typing /factions.");
+                session.send(new org.spacehq.mc.protocol.packet.ingame.client.ClientChatPacket("/factions"));
               }
-			  // make the bot go back to the factions server.
-              System.out.println("Bot > Typing /factions.");
-              session.send(new org.spacehq.mc.protocol.packet.ingame.client.ClientChatPacket("/factions"));
-            }
-            
+            }, 40000L, 40000L);
           }
-        };
-        thread.start();
+        });
       }
     });
-    client.getSession().connect();
+    supervisor.start();
   }
 }
 
@@ -2,6 +2,11 @@ package org.spacehq.mc.protocol;
 
 import java.math.BigInteger;
 import java.net.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import javax.crypto.SecretKey;
 import org.spacehq.mc.auth.data.GameProfile;
 import org.spacehq.mc.auth.exception.request.InvalidCredentialsException;
@@ -11,7 +16,6 @@ import org.spacehq.mc.auth.service.SessionService;
 import org.spacehq.mc.protocol.data.SubProtocol;
 import org.spacehq.mc.protocol.data.game.values.HandshakeIntent;
 import org.spacehq.mc.protocol.data.message.Message;
-import org.spacehq.mc.protocol.data.status.ServerStatusInfo;
 import org.spacehq.mc.protocol.data.status.handler.ServerInfoHandler;
 import org.spacehq.mc.protocol.data.status.handler.ServerPingTimeHandler;
 import org.spacehq.mc.protocol.packet.handshake.client.HandshakePacket;
@@ -32,96 +36,150 @@ import org.spacehq.mc.protocol.packet.status.server.StatusResponsePacket;
 import org.spacehq.mc.protocol.util.CryptUtil;
 import org.spacehq.packetlib.Session;
 import org.spacehq.packetlib.event.session.ConnectedEvent;
+import org.spacehq.packetlib.event.session.DisconnectedEvent;
 import org.spacehq.packetlib.event.session.PacketReceivedEvent;
 import org.spacehq.packetlib.event.session.SessionAdapter;
+import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.PacketHandler;
 
 public class ClientListener
   extends SessionAdapter
 {
-  public void packetReceived(PacketReceivedEvent event)
+  private Map<Class<? extends Packet>, PacketHandler<?>> handlers = new HashMap();
+  private Set<Session> subscribed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap()));
+  
+  public ClientListener()
   {
-    MinecraftProtocol protocol = (MinecraftProtocol)event.getSession().getPacketProtocol();
-    if (protocol.getSubProtocol() == SubProtocol.LOGIN)
+    on(EncryptionRequestPacket.class, new PacketHandler<EncryptionRequestPacket>()
     {
-      if ((event.getPacket() instanceof EncryptionRequestPacket))
+      public void handle(Session session, EncryptionRequestPacket packet)
       {
-        EncryptionRequestPacket packet = (EncryptionRequestPacket)event.getPacket();
+        MinecraftProtocol protocol = (MinecraftProtocol)session.getPacketProtocol();
         SecretKey key = CryptUtil.generateSharedKey();
         
-        Proxy proxy = (Proxy)event.getSession().getFlag("auth-proxy");
+        Proxy proxy = session.getFlag(MinecraftConstants.AUTH_PROXY_FLAG);
         if (proxy == null) {
           proxy = Proxy.NO_PROXY;
         }
-        GameProfile profile = (GameProfile)event.getSession().getFlag("profile");
+        GameProfile profile = session.getFlag(MinecraftConstants.PROFILE_FLAG);
         String serverHash = new BigInteger(CryptUtil.getServerIdHash(packet.getServerId(), packet.getPublicKey(), key)).toString(16);
-        String accessToken = (String)event.getSession().getFlag("access-token");
+        String accessToken = session.getFlag(MinecraftConstants.ACCESS_TOKEN_FLAG);
         try
         {
           new SessionService(proxy).joinServer(profile, accessToken, serverHash);
         }
         catch (ServiceUnavailableException e)
         {
-          event.getSession().disconnect("Login failed: Authentication service unavailable.", e);
+          session.disconnect("Login failed: Authentication service unavailable.", e);
           return;
         }
         catch (InvalidCredentialsException e)
         {
-          event.getSession().disconnect("Login failed: Invalid login session.", e);
+          session.disconnect("Login failed: Invalid login session.", e);
           return;
         }
         catch (RequestException e)
         {
-          event.getSession().disconnect("Login failed: Authentication error: " + e.getMessage(), e);
+          session.disconnect("Login failed: Authentication error: " + e.getMessage(), e);
           return;
         }
-        event.getSession().send(new EncryptionResponsePacket(key, packet.getPublicKey(), packet.getVerifyToken()));
+        session.send(new EncryptionResponsePacket(key, packet.getPublicKey(), packet.getVerifyToken()));
         protocol.enableEncryption(key);
       }
-      else if ((event.getPacket() instanceof LoginSuccessPacket))
+    });
+    on(LoginSuccessPacket.class, new PacketHandler<LoginSuccessPacket>()
+    {
+      public void handle(Session session, LoginSuccessPacket packet)
       {
-        LoginSuccessPacket packet = (LoginSuccessPacket)event.getPacket();
-        event.getSession().setFlag("profile", packet.getProfile());
-        protocol.setSubProtocol(SubProtocol.GAME, true, event.getSession());
+        MinecraftProtocol protocol = (MinecraftProtocol)session.getPacketProtocol();
+        session.setFlag(MinecraftConstants.PROFILE_FLAG, packet.getProfile());
+        protocol.setSubProtocol(SubProtocol.GAME, true);
+        protocol.completeLogin(session);
       }
-      else if ((event.getPacket() instanceof LoginDisconnectPacket))
+    });
+    on(LoginDisconnectPacket.class, new PacketHandler<LoginDisconnectPacket>()
+    {
+      public void handle(Session session, LoginDisconnectPacket packet)
       {
-        LoginDisconnectPacket packet = (LoginDisconnectPacket)event.getPacket();
-        event.getSession().disconnect(packet.getReason().getFullText());
+        session.setFlag(MinecraftConstants.KICKED_FLAG, Boolean.valueOf(true));
+        session.disconnect(packet.getReason().getFullText());
       }
-      else if ((event.getPacket() instanceof LoginSetCompressionPacket))
+    });
+    on(LoginSetCompressionPacket.class, new PacketHandler<LoginSetCompressionPacket>()
+    {
+      public void handle(Session session, LoginSetCompressionPacket packet)
       {
-        event.getSession().setCompressionThreshold(((LoginSetCompressionPacket)event.getPacket()).getThreshold());
+        session.setCompressionThreshold(packet.getThreshold());
       }
-    }
-    else if (protocol.getSubProtocol() == SubProtocol.STATUS)
+    });
+    on(StatusResponsePacket.class, new PacketHandler<StatusResponsePacket>()
     {
-      if ((event.getPacket() instanceof StatusResponsePacket))
+      public void handle(Session session, StatusResponsePacket packet)
       {
-        ServerStatusInfo info = ((StatusResponsePacket)event.getPacket()).getInfo();
-        ServerInfoHandler handler = (ServerInfoHandler)event.getSession().getFlag("server-info-handler");
+        ServerInfoHandler handler = session.getFlag(MinecraftConstants.SERVER_INFO_HANDLER_FLAG);
         if (handler != null) {
-          handler.handle(event.getSession(), info);
+          handler.handle(session, packet.getInfo());
         }
-        event.getSession().send(new StatusPingPacket(System.currentTimeMillis()));
+        session.send(new StatusPingPacket(System.currentTimeMillis()));
       }
-      else if ((event.getPacket() instanceof StatusPongPacket))
+    });
+    on(StatusPongPacket.class, new PacketHandler<StatusPongPacket>()
+    {
+      public void handle(Session session, StatusPongPacket packet)
       {
-        long time = System.currentTimeMillis() - ((StatusPongPacket)event.getPacket()).getPingTime();
-        ServerPingTimeHandler handler = (ServerPingTimeHandler)event.getSession().getFlag("server-ping-time-handler");
+        long time = System.currentTimeMillis() - packet.getPingTime();
+        ServerPingTimeHandler handler = session.getFlag(MinecraftConstants.SERVER_PING_TIME_HANDLER_FLAG);
         if (handler != null) {
-          handler.handle(event.getSession(), time);
+          handler.handle(session, time);
         }
-        event.getSession().disconnect("Finished");
+        session.disconnect("Finished");
       }
-    }
-    else if (protocol.getSubProtocol() == SubProtocol.GAME) {
-      if ((event.getPacket() instanceof ServerKeepAlivePacket)) {
-        event.getSession().send(new ClientKeepAlivePacket(((ServerKeepAlivePacket)event.getPacket()).getPingId()));
-      } else if ((event.getPacket() instanceof ServerDisconnectPacket)) {
-        event.getSession().disconnect(((ServerDisconnectPacket)event.getPacket()).getReason().getFullText());
-      } else if ((event.getPacket() instanceof ServerSetCompressionPacket)) {
-        event.getSession().setCompressionThreshold(((ServerSetCompressionPacket)event.getPacket()).getThreshold());
+    });
+    on(ServerKeepAlivePacket.class, new PacketHandler<ServerKeepAlivePacket>()
+    {
+      public void handle(Session session, ServerKeepAlivePacket packet)
+      {
+        session.send(new ClientKeepAlivePacket(packet.getPingId()));
+      }
+    });
+    on(ServerDisconnectPacket.class, new PacketHandler<ServerDisconnectPacket>()
+    {
+      public void handle(Session session, ServerDisconnectPacket packet)
+      {
+        session.setFlag(MinecraftConstants.KICKED_FLAG, Boolean.valueOf(true));
+        session.disconnect(packet.getReason().getFullText());
+      }
+    });
+    on(ServerSetCompressionPacket.class, new PacketHandler<ServerSetCompressionPacket>()
+    {
+      public void handle(Session session, ServerSetCompressionPacket packet)
+      {
+        session.setCompressionThreshold(packet.getThreshold());
       }
+    });
+  }
+  
+  private <T extends Packet> void on(Class<T> packet, PacketHandler<? super T> handler)
+  {
+    this.handlers.put(packet, handler);
+  }
+  
+  public void subscribe(Session session)
+  {
+    for (Map.Entry<Class<? extends Packet>, PacketHandler<?>> entry : this.handlers.entrySet()) {
+      session.on((Class)entry.getKey(), (PacketHandler)entry.getValue());
+    }
+    this.subscribed.add(session);
+  }
+  
+  public void packetReceived(PacketReceivedEvent event)
+  {
+    if (this.subscribed.contains(event.getSession())) {
+      return;
+    }
+    PacketHandler<Packet> handler = (PacketHandler)this.handlers.get(event.getPacket().getClass());
+    if (handler != null) {
+      handler.handle(event.getSession(), event.getPacket());
     }
   }
   
@@ -130,18 +188,23 @@ public class ClientListener
     MinecraftProtocol protocol = (MinecraftProtocol)event.getSession().getPacketProtocol();
     if (protocol.getSubProtocol() == SubProtocol.LOGIN)
     {
-      GameProfile profile = (GameProfile)event.getSession().getFlag("profile");
-      protocol.setSubProtocol(SubProtocol.HANDSHAKE, true, event.getSession());
+      GameProfile profile = event.getSession().getFlag(MinecraftConstants.PROFILE_FLAG);
+      protocol.setSubProtocol(SubProtocol.HANDSHAKE, true);
       event.getSession().send(new HandshakePacket(47, event.getSession().getHost(), event.getSession().getPort(), HandshakeIntent.LOGIN));
-      protocol.setSubProtocol(SubProtocol.LOGIN, true, event.getSession());
+      protocol.setSubProtocol(SubProtocol.LOGIN, true);
       event.getSession().send(new LoginStartPacket(profile != null ? profile.getName() : ""));
     }
     else if (protocol.getSubProtocol() == SubProtocol.STATUS)
     {
-      protocol.setSubProtocol(SubProtocol.HANDSHAKE, true, event.getSession());
+      protocol.setSubProtocol(SubProtocol.HANDSHAKE, true);
       event.getSession().send(new HandshakePacket(47, event.getSession().getHost(), event.getSession().getPort(), HandshakeIntent.STATUS));
-      protocol.setSubProtocol(SubProtocol.STATUS, true, event.getSession());
+      protocol.setSubProtocol(SubProtocol.STATUS, true);
       event.getSession().send(new StatusQueryPacket());
     }
   }
+  
+  public void disconnected(DisconnectedEvent event)
+  {
+    ((MinecraftProtocol)event.getSession().getPacketProtocol()).failLogin(event.getReason(), event.getCause());
+  }
 }
@@ -0,0 +1,649 @@
+package org.spacehq.mc.protocol;
+
+import org.spacehq.mc.protocol.data.game.Chunk;
+import org.spacehq.mc.protocol.data.game.NibbleArray3d;
+import org.spacehq.mc.protocol.data.game.Position;
+import org.spacehq.mc.protocol.data.game.ShortArray3d;
+import org.spacehq.mc.protocol.data.game.values.world.block.BlockChangeRecord;
+import org.spacehq.mc.protocol.packet.ingame.server.ServerJoinGamePacket;
+import org.spacehq.mc.protocol.packet.ingame.server.ServerRespawnPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.ServerDestroyEntitiesPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.ServerEntityMovementPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.ServerEntityPositionRotationPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.ServerEntityRotationPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.ServerEntityTeleportPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnExpOrbPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnGlobalEntityPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnMobPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnObjectPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnPaintingPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.entity.spawn.ServerSpawnPlayerPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.world.ServerBlockChangePacket;
+import org.spacehq.mc.protocol.packet.ingame.server.world.ServerChunkDataPacket;
+import org.spacehq.mc.protocol.packet.ingame.server.world.ServerMultiBlockChangePacket;
+import org.spacehq.mc.protocol.packet.ingame.server.world.ServerMultiChunkDataPacket;
+import org.spacehq.packetlib.Session;
+import org.spacehq.packetlib.event.session.DisconnectedEvent;
+import org.spacehq.packetlib.event.session.SessionAdapter;
+import org.spacehq.packetlib.packet.PacketHandler;
+
+public class ClientWorld
+  extends SessionAdapter
+{
+  private static final int DEFAULT_MAX_COLUMNS = 1024;
+  private static final int INITIAL_CAPACITY = 64;
+  private int maxColumns;
+  private long[] columnKeys;
+  private Column[] columns;
+  private int columnCount;
+  private Column oldest;
+  private Column newest;
+  private int[] entityIds;
+  private boolean[] entityUsed;
+  private double[] entityPositions;
+  private float[] entityRotations;
+  private int entityCount;
+  
+  public ClientWorld()
+  {
+    this(1024);
+  }
+  
+  public ClientWorld(int maxColumns)
+  {
+    if (maxColumns <= 0) {
+      throw new IllegalArgumentException("Invalid maximum column count: " + maxColumns);
+    }
+    this.maxColumns = maxColumns;
+    this.columnKeys = new long[64];
+    this.columns = new Column[64];
+    this.entityIds = new int[64];
+    this.entityUsed = new boolean[64];
+    this.entityPositions = new double[192];
+    this.entityRotations = new float[128];
+  }
+  
+  public void subscribe(Session session)
+  {
+    session.on(ServerJoinGamePacket.class, new PacketHandler<ServerJoinGamePacket>()
+    {
+      public void handle(Session session, ServerJoinGamePacket packet)
+      {
+        ClientWorld.this.clear();
+      }
+    });
+    session.on(ServerRespawnPacket.class, new PacketHandler<ServerRespawnPacket>()
+    {
+      public void handle(Session session, ServerRespawnPacket packet)
+      {
+        ClientWorld.this.clear();
+      }
+    });
+    session.on(ServerChunkDataPacket.class, new PacketHandler<ServerChunkDataPacket>()
+    {
+      public void handle(Session session, ServerChunkDataPacket packet)
+      {
+        ClientWorld.this.updateColumn(packet.getX(), packet.getZ(), packet.getChunks(), packet.getBiomeData(), packet.isFullChunk());
+      }
+    });
+    session.on(ServerMultiChunkDataPacket.class, new PacketHandler<ServerMultiChunkDataPacket>()
+    {
+      public void handle(Session session, ServerMultiChunkDataPacket packet)
+      {
+        for (int column = 0; column < packet.getColumns(); column++) {
+          ClientWorld.this.updateColumn(packet.getX(column), packet.getZ(column), packet.getChunks(column), packet.getBiomeData(column), true);
+        }
+      }
+    });
+    session.on(ServerBlockChangePacket.class, new PacketHandler<ServerBlockChangePacket>()
+    {
+      public void handle(Session session, ServerBlockChangePacket packet)
+      {
+        ClientWorld.this.updateBlocks(new BlockChangeRecord[] { packet.getRecord() });
+      }
+    });
+    session.on(ServerMultiBlockChangePacket.class, new PacketHandler<ServerMultiBlockChangePacket>()
+    {
+      public void handle(Session session, ServerMultiBlockChangePacket packet)
+      {
+        ClientWorld.this.updateBlocks(packet.getRecords());
+      }
+    });
+    session.on(ServerSpawnMobPacket.class, new PacketHandler<ServerSpawnMobPacket>()
+    {
+      public void handle(Session session, ServerSpawnMobPacket packet)
+      {
+        ClientWorld.this.spawnEntity(packet.getEntityId(), packet.getX(), packet.getY(), packet.getZ(), packet.getYaw(), packet.getPitch());
+      }
+    });
+    session.on(ServerSpawnObjectPacket.class, new PacketHandler<ServerSpawnObjectPacket>()
+    {
+      public void handle(Session session, ServerSpawnObjectPacket packet)
+      {
+        ClientWorld.this.spawnEntity(packet.getEntityId(), packet.getX(), packet.getY(), packet.getZ(), packet.getYaw(), packet.getPitch());
+      }
+    });
+    session.on(ServerSpawnPlayerPacket.class, new PacketHandler<ServerSpawnPlayerPacket>()
+    {
+      public void handle(Session session, ServerSpawnPlayerPacket packet)
+      {
+        ClientWorld.this.spawnEntity(packet.getEntityId(), packet.getX(), packet.getY(), packet.getZ(), packet.getYaw(), packet.getPitch());
+      }
+    });
+    session.on(ServerSpawnExpOrbPacket.class, new PacketHandler<ServerSpawnExpOrbPacket>()
+    {
+      public void handle(Session session, ServerSpawnExpOrbPacket packet)
+      {
+        ClientWorld.this.spawnEntity(packet.getEntityId(), packet.getX(), packet.getY(), packet.getZ(), 0.0F, 0.0F);
+      }
+    });
+    session.on(ServerSpawnGlobalEntityPacket.class, new PacketHandler<ServerSpawnGlobalEntityPacket>()
+    {
+      public void handle(Session session, ServerSpawnGlobalEntityPacket packet)
+      {
+        ClientWorld.this.spawnEntity(packet.getEntityId(), packet.getX() / 32.0D, packet.getY() / 32.0D, packet.getZ() / 32.0D, 0.0F, 0.0F);
+      }
+    });
+    session.on(ServerSpawnPaintingPacket.class, new PacketHandler<ServerSpawnPaintingPacket>()
+    {
+      public void handle(Session session, ServerSpawnPaintingPacket packet)
+      {
+        Position position = packet.getPosition();
+        ClientWorld.this.spawnEntity(packet.getEntityId(), position.getX(), position.getY(), position.getZ(), 0.0F, 0.0F);
+      }
+    });
+    session.on(ServerEntityMovementPacket.class, new PacketHandler<ServerEntityMovementPacket>()
+    {
+      public void handle(Session session, ServerEntityMovementPacket packet)
+      {
+        boolean rotation = ((packet instanceof ServerEntityRotationPacket)) || ((packet instanceof ServerEntityPositionRotationPacket));
+        ClientWorld.this.moveEntity(packet.getEntityId(), packet.getMovementX(), packet.getMovementY(), packet.getMovementZ(), rotation, packet.getYaw(), packet.getPitch());
+      }
+    });
+    session.on(ServerEntityTeleportPacket.class, new PacketHandler<ServerEntityTeleportPacket>()
+    {
+      public void handle(Session session, ServerEntityTeleportPacket packet)
+      {
+        ClientWorld.this.teleportEntity(packet.getEntityId(), packet.getX(), packet.getY(), packet.getZ(), packet.getYaw(), packet.getPitch());
+      }
+    });
+    session.on(ServerDestroyEntitiesPacket.class, new PacketHandler<ServerDestroyEntitiesPacket>()
+    {
+      public void handle(Session session, ServerDestroyEntitiesPacket packet)
+      {
+        ClientWorld.this.destroyEntities(packet.getEntityIds());
+      }
+    });
+    session.addListener(this);
+  }
+  
+  public void disconnected(DisconnectedEvent event)
+  {
+    clear();
+  }
+  
+  public int getMaxColumns()
+  {
+    return this.maxColumns;
+  }
+  
+  public synchronized int getColumnCount()
+  {
+    return this.columnCount;
+  }
+  
+  public synchronized boolean isColumnLoaded(int chunkX, int chunkZ)
+  {
+    return findColumn(key(chunkX, chunkZ)) >= 0;
+  }
+  
+  public synchronized Chunk[] getChunks(int chunkX, int chunkZ)
+  {
+    int slot = findColumn(key(chunkX, chunkZ));
+    if (slot < 0) {
+      return null;
+    }
+    Chunk[] chunks = this.columns[slot].chunks;
+    Chunk[] copy = new Chunk[chunks.length];
+    for (int y = 0; y < chunks.length; y++) {
+      if (chunks[y] != null) {
+        copy[y] = copy(chunks[y]);
+      }
+    }
+    return copy;
+  }
+  
+  public synchronized byte[] getBiomeData(int chunkX, int chunkZ)
+  {
+    int slot = findColumn(key(chunkX, chunkZ));
+    if (slot < 0) {
+      return null;
+    }
+    byte[] biomeData = this.columns[slot].biomeData;
+    return biomeData != null ? (byte[])biomeData.clone() : null;
+  }
+  
+  public synchronized int getBlock(int x, int y, int z)
+  {
+    Chunk chunk = findChunk(x, y, z);
+    return chunk != null ? chunk.getBlocks().getBlock(x & 0xF, y & 0xF, z & 0xF) : 0;
+  }
+  
+  public synchronized int getData(int x, int y, int z)
+  {
+    Chunk chunk = findChunk(x, y, z);
+    return chunk != null ? chunk.getBlocks().getData(x & 0xF, y & 0xF, z & 0xF) : 0;
+  }
+  
+  public synchronized boolean unloadColumn(int chunkX, int chunkZ)
+  {
+    int slot = findColumn(key(chunkX, chunkZ));
+    if (slot < 0) {
+      return false;
+    }
+    removeColumn(slot);
+    return true;
+  }
+  
+  public synchronized int getEntityCount()
+  {
+    return this.entityCount;
+  }
+  
+  public synchronized boolean hasEntity(int entityId)
+  {
+    return findEntity(entityId) >= 0;
+  }
+  
+  public synchronized int[] getEntityIds()
+  {
+    int[] ids = new int[this.entityCount];
+    int count = 0;
+    for (int slot = 0; slot < this.entityIds.length; slot++) {
+      if (this.entityUsed[slot]) {
+        ids[(count++)] = this.entityIds[slot];
+      }
+    }
+    return ids;
+  }
+  
+  public synchronized double[] getEntityPosition(int entityId)
+  {
+    int slot = findEntity(entityId);
+    if (slot < 0) {
+      return null;
+    }
+    return new double[] { this.entityPositions[(slot * 3)], this.entityPositions[(slot * 3 + 1)], this.entityPositions[(slot * 3 + 2)] };
+  }
+  
+  public synchronized float[] getEntityRotation(int entityId)
+  {
+    int slot = findEntity(entityId);
+    if (slot < 0) {
+      return null;
+    }
+    return new float[] { this.entityRotations[(slot * 2)], this.entityRotations[(slot * 2 + 1)] };
+  }
+  
+  public synchronized void clear()
+  {
+    this.columnKeys = new long[64];
+    this.columns = new Column[64];
+    this.columnCount = 0;
+    this.oldest = null;
+    this.newest = null;
+    this.entityIds = new int[64];
+    this.entityUsed = new boolean[64];
+    this.entityPositions = new double[192];
+    this.entityRotations = new float[128];
+    this.entityCount = 0;
+  }
+  
+  private synchronized void updateColumn(int chunkX, int chunkZ, Chunk[] chunks, byte[] biomeData, boolean fullChunk)
+  {
+    long key = key(chunkX, chunkZ);
+    int slot = findColumn(key);
+    if ((fullChunk) && (isEmpty(chunks)))
+    {
+      if (slot >= 0) {
+        removeColumn(slot);
+      }
+      return;
+    }
+    Column column = slot >= 0 ? this.columns[slot] : null;
+    if (column == null)
+    {
+      if (this.columnCount >= this.maxColumns) {
+        removeColumn(findColumn(this.oldest.key));
+      }
+      column = new Column(key, fullChunk ? chunks : new Chunk[16]);
+      insertColumn(key, column);
+    }
+    else if (fullChunk)
+    {
+      column.chunks = chunks;
+    }
+    if (!fullChunk) {
+      for (int y = 0; y < chunks.length; y++) {
+        if (chunks[y] != null) {
+          column.chunks[y] = chunks[y];
+        }
+      }
+    }
+    if (biomeData != null) {
+      column.biomeData = biomeData;
+    }
+    for (Chunk chunk : chunks) {
+      if (chunk != null)
+      {
+        column.skylight = (chunk.getSkyLight() != null);
+        break;
+      }
+    }
+    touchColumn(column);
+  }
+  
+  private synchronized void updateBlocks(BlockChangeRecord[] records)
+  {
+    for (BlockChangeRecord record : records)
+    {
+      Position position = record.getPosition();
+      if ((position.getY() >= 0) && (position.getY() <= 255))
+      {
+        int slot = findColumn(key(position.getX() >> 4, position.getZ() >> 4));
+        if (slot >= 0)
+        {
+          Column column = this.columns[slot];
+          Chunk chunk = column.chunks[(position.getY() >> 4)];
+          if (chunk == null)
+          {
+            if ((record.getId() == 0) && (record.getData() == 0)) {
+              continue;
+            }
+            chunk = new Chunk(column.skylight);
+            column.chunks[(position.getY() >> 4)] = chunk;
+          }
+          chunk.getBlocks().setBlockAndData(position.getX() & 0xF, position.getY() & 0xF, position.getZ() & 0xF, record.getId(), record.getData());
+          touchColumn(column);
+        }
+      }
+    }
+  }
+  
+  private synchronized void spawnEntity(int entityId, double x, double y, double z, float yaw, float pitch)
+  {
+    int slot = findEntity(entityId);
+    if (slot < 0)
+    {
+      if ((this.entityCount + 1) * 2 > this.entityIds.length) {
+        resizeEntities(this.entityIds.length * 2);
+      }
+      slot = entitySlot(entityId);
+      while (this.entityUsed[slot]) {
+        slot = slot + 1 & this.entityIds.length - 1;
+      }
+      this.entityIds[slot] = entityId;
+      this.entityUsed[slot] = true;
+      this.entityCount += 1;
+    }
+    setEntity(slot, x, y, z, yaw, pitch);
+  }
+  
+  private synchronized void moveEntity(int entityId, double moveX, double moveY, double moveZ, boolean rotation, float yaw, float pitch)
+  {
+    int slot = findEntity(entityId);
+    if (slot < 0) {
+      return;
+    }
+    this.entityPositions[(slot * 3)] += moveX;
+    this.entityPositions[(slot * 3 + 1)] += moveY;
+    this.entityPositions[(slot * 3 + 2)] += moveZ;
+    if (rotation)
+    {
+      this.entityRotations[(slot * 2)] = yaw;
+      this.entityRotations[(slot * 2 + 1)] = pitch;
+    }
+  }
+  
+  private synchronized void teleportEntity(int entityId, double x, double y, double z, float yaw, float pitch)
+  {
+    int slot = findEntity(entityId);
+    if (slot >= 0) {
+      setEntity(slot, x, y, z, yaw, pitch);
+    }
+  }
+  
+  private synchronized void destroyEntities(int[] entityIds)
+  {
+    for (int entityId : entityIds)
+    {
+      int slot = findEntity(entityId);
+      if (slot >= 0) {
+        removeEntity(slot);
+      }
+    }
+  }
+  
+  private void setEntity(int slot, double x, double y, double z, float yaw, float pitch)
+  {
+    this.entityPositions[(slot * 3)] = x;
+    this.entityPositions[(slot * 3 + 1)] = y;
+    this.entityPositions[(slot * 3 + 2)] = z;
+    this.entityRotations[(slot * 2)] = yaw;
+    this.entityRotations[(slot * 2 + 1)] = pitch;
+  }
+  
+  private Chunk findChunk(int x, int y, int z)
+  {
+    if ((y < 0) || (y > 255)) {
+      return null;
+    }
+    int slot = findColumn(key(x >> 4, z >> 4));
+    return slot >= 0 ? this.columns[slot].chunks[(y >> 4)] : null;
+  }
+  
+  private int findColumn(long key)
+  {
+    int mask = this.columns.length - 1;
+    for (int slot = columnSlot(key); this.columns[slot] != null; slot = slot + 1 & mask) {
+      if (this.columnKeys[slot] == key) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+  
+  private void insertColumn(long key, Column column)
+  {
+    if ((this.columnCount + 1) * 2 > this.columns.length)
+    {
+      long[] keys = this.columnKeys;
+      Column[] columns = this.columns;
+      this.columnKeys = new long[columns.length * 2];
+      this.columns = new Column[columns.length * 2];
+      for (int slot = 0; slot < columns.length; slot++) {
+        if (columns[slot] != null) {
+          placeColumn(keys[slot], columns[slot]);
+        }
+      }
+    }
+    placeColumn(key, column);
+    this.columnCount += 1;
+  }
+  
+  private void placeColumn(long key, Column column)
+  {
+    int slot = columnSlot(key);
+    while (this.columns[slot] != null) {
+      slot = slot + 1 & this.columns.length - 1;
+    }
+    this.columnKeys[slot] = key;
+    this.columns[slot] = column;
+  }
+  
+  private void removeColumn(int slot)
+  {
+    int mask = this.columns.length - 1;
+    unlinkColumn(this.columns[slot]);
+    this.columns[slot] = null;
+    this.columnCount -= 1;
+    for (int next = slot + 1 & mask; this.columns[next] != null; next = next + 1 & mask) {
+      if ((next - columnSlot(this.columnKeys[next]) & mask) >= (next - slot & mask))
+      {
+        this.columnKeys[slot] = this.columnKeys[next];
+        this.columns[slot] = this.columns[next];
+        this.columns[next] = null;
+        slot = next;
+      }
+    }
+  }
+  
+  private void touchColumn(Column column)
+  {
+    if (column == this.newest) {
+      return;
+    }
+    unlinkColumn(column);
+    column.previous = this.newest;
+    if (this.newest != null) {
+      this.newest.next = column;
+    } else {
+      this.oldest = column;
+    }
+    this.newest = column;
+  }
+  
+  private void unlinkColumn(Column column)
+  {
+    if (column.previous != null) {
+      column.previous.next = column.next;
+    } else if (this.oldest == column) {
+      this.oldest = column.next;
+    }
+    if (column.next != null) {
+      column.next.previous = column.previous;
+    } else if (this.newest == column) {
+      this.newest = column.previous;
+    }
+    column.previous = null;
+    column.next = null;
+  }
+  
+  private int findEntity(int entityId)
+  {
+    int mask = this.entityIds.length - 1;
+    for (int slot = entitySlot(entityId); this.entityUsed[slot]; slot = slot + 1 & mask) {
+      if (this.entityIds[slot] == entityId) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+  
+  private void removeEntity(int slot)
+  {
+    int mask = this.entityIds.length - 1;
+    this.entityUsed[slot] = false;
+    this.entityCount -= 1;
+    for (int next = slot + 1 & mask; this.entityUsed[next]; next = next + 1 & mask) {
+      if ((next - entitySlot(this.entityIds[next]) & mask) >= (next - slot & mask))
+      {
+        this.entityIds[slot] = this.entityIds[next];
+        this.entityUsed[slot] = true;
+        System.arraycopy(this.entityPositions, next * 3, this.entityPositions, slot * 3, 3);
+        System.arraycopy(this.entityRotations, next * 2, this.entityRotations, slot * 2, 2);
+        this.entityUsed[next] = false;
+        slot = next;
+      }
+    }
+  }
+  
+  private void resizeEntities(int capacity)
+  {
+    int[] ids = this.entityIds;
+    boolean[] used = this.entityUsed;
+    double[] positions = this.entityPositions;
+    float[] rotations = this.entityRotations;
+    this.entityIds = new int[capacity];
+    this.entityUsed = new boolean[capacity];
+    this.entityPositions = new double[capacity * 3];
+    this.entityRotations = new float[capacity * 2];
+    for (int old = 0; old < ids.length; old++) {
+      if (used[old])
+      {
+        int slot = entitySlot(ids[old]);
+        while (this.entityUsed[slot]) {
+          slot = slot + 1 & capacity - 1;
+        }
+        this.entityIds[slot] = ids[old];
+        this.entityUsed[slot] = true;
+        System.arraycopy(positions, old * 3, this.entityPositions, slot * 3, 3);
+        System.arraycopy(rotations, old * 2, this.entityRotations, slot * 2, 2);
+      }
+    }
+  }
+  
+  private int columnSlot(long key)
+  {
+    long hash = key * -7046029254386353131L;
+    return (int)(hash ^ hash >>> 32) & this.columns.length - 1;
+  }
+  
+  private int entitySlot(int entityId)
+  {
+    int hash = entityId * -1640531535;
+    return (hash ^ hash >>> 16) & this.entityIds.length - 1;
+  }
+  
+  private static long key(int chunkX, int chunkZ)
+  {
+    return (long)chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+  }
+  
+  private static Chunk copy(Chunk chunk)
+  {
+    short[] data = new short[chunk.getBlocks().size()];
+    chunk.getBlocks().copyTo(data, 0);
+    ShortArray3d blocks = new ShortArray3d(data.length);
+    blocks.load(data, 0);
+    return new Chunk(blocks, copy(chunk.getBlockLight()), copy(chunk.getSkyLight()));
+  }
+  
+  private static NibbleArray3d copy(NibbleArray3d array)
+  {
+    if (array == null) {
+      return null;
+    }
+    byte[] data = new byte[2048];
+    array.copyTo(data, 0);
+    NibbleArray3d copy = new NibbleArray3d(4096);
+    copy.load(data, 0);
+    return copy;
+  }
+  
+  private static boolean isEmpty(Chunk[] chunks)
+  {
+    for (Chunk chunk : chunks) {
+      if (chunk != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  private static class Column
+  {
+    private long key;
+    private Chunk[] chunks;
+    private byte[] biomeData;
+    private boolean skylight;
+    private Column previous;
+    private Column next;
+  
+    public Column(long key, Chunk[] chunks)
+    {
+      this.key = key;
+      this.chunks = chunks;
+    }
+  }
+}
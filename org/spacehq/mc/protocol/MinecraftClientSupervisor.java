@@ -0,0 +1,183 @@
+package org.spacehq.mc.protocol;
+
+import java.net.Proxy;
+import java.util.UUID;
+import org.spacehq.mc.auth.data.GameProfile;
+import org.spacehq.mc.auth.exception.request.InvalidCredentialsException;
+import org.spacehq.mc.auth.exception.request.RequestException;
+import org.spacehq.mc.auth.service.AuthenticationService;
+import org.spacehq.packetlib.ClientSupervisor;
+import org.spacehq.packetlib.DisconnectType;
+import org.spacehq.packetlib.Session;
+import org.spacehq.packetlib.SessionFactory;
+import org.spacehq.packetlib.event.session.DisconnectedEvent;
+import org.spacehq.packetlib.packet.PacketProtocol;
+
+public class MinecraftClientSupervisor
+  extends ClientSupervisor
+{
+  private GameProfile profile;
+  private String clientToken;
+  private String accessToken;
+  private String username;
+  private String password;
+  private Proxy authProxy = Proxy.NO_PROXY;
+  private boolean relogin = false;
+  private boolean reloginFailed = false;
+  
+  public MinecraftClientSupervisor(String host, int port, MinecraftProtocol protocol, SessionFactory factory)
+  {
+    this(host, port, protocol.getProfile(), protocol.getAccessToken(), factory);
+    this.clientToken = protocol.getClientToken();
+  }
+  
+  public MinecraftClientSupervisor(String host, int port, GameProfile profile, String accessToken, SessionFactory factory)
+  {
+    super(host, port, factory);
+    if (profile == null) {
+      throw new IllegalArgumentException("Supervised clients require a login profile.");
+    }
+    this.profile = profile;
+    this.accessToken = accessToken;
+  }
+  
+  public synchronized GameProfile getProfile()
+  {
+    return this.profile;
+  }
+  
+  public synchronized String getAccessToken()
+  {
+    return this.accessToken;
+  }
+  
+  public Proxy getAuthProxy()
+  {
+    return this.authProxy;
+  }
+  
+  public void setAuthProxy(Proxy proxy)
+  {
+    this.authProxy = (proxy != null ? proxy : Proxy.NO_PROXY);
+  }
+  
+  public synchronized void setCredentials(String username, String password)
+  {
+    this.username = username;
+    this.password = password;
+    this.reloginFailed = false;
+  }
+  
+  protected synchronized PacketProtocol createPacketProtocol()
+  {
+    return new MinecraftProtocol(this.profile, this.accessToken);
+  }
+  
+  protected void reconnect()
+  {
+    synchronized (this)
+    {
+      if (!this.relogin)
+      {
+        super.reconnect();
+        return;
+      }
+    }
+    Thread thread = new Thread("Supervisor Relogin")
+    {
+      public void run()
+      {
+        MinecraftClientSupervisor.this.relogin();
+        MinecraftClientSupervisor.super.reconnect();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+  
+  protected synchronized DisconnectType classify(Session session, DisconnectedEvent event)
+  {
+    if ((event.getCause() instanceof InvalidCredentialsException))
+    {
+      if ((!this.reloginFailed) && ((this.clientToken != null) || (this.password != null)))
+      {
+        this.relogin = true;
+        return DisconnectType.AUTH_EXPIRED;
+      }
+      return DisconnectType.AUTH_FAILED;
+    }
+    if (session.hasFlag(MinecraftConstants.KICKED_FLAG)) {
+      return DisconnectType.KICKED;
+    }
+    return super.classify(session, event);
+  }
+  
+  private void relogin()
+  {
+    String clientToken;
+    String username;
+    String password;
+    String accessToken;
+    synchronized (this)
+    {
+      clientToken = this.clientToken;
+      username = this.username != null ? this.username : this.profile.getName();
+      password = this.password;
+      accessToken = this.accessToken;
+    }
+    AuthenticationService auth = null;
+    boolean failed = false;
+    try
+    {
+      if (clientToken != null) {
+        try
+        {
+          auth = new AuthenticationService(clientToken, this.authProxy);
+          auth.setUsername(username);
+          auth.setAccessToken(accessToken);
+          auth.login();
+        }
+        catch (InvalidCredentialsException e)
+        {
+          if (password == null) {
+            throw e;
+          }
+          auth = null;
+        }
+      }
+      if (auth == null)
+      {
+        if (clientToken == null) {
+          clientToken = UUID.randomUUID().toString();
+        }
+        auth = new AuthenticationService(clientToken, this.authProxy);
+        auth.setUsername(username);
+        auth.setPassword(password);
+        auth.login();
+      }
+    }
+    catch (InvalidCredentialsException e)
+    {
+      auth = null;
+      failed = true;
+    }
+    catch (RequestException e)
+    {
+      return;
+    }
+    synchronized (this)
+    {
+      this.relogin = false;
+      if (failed)
+      {
+        this.reloginFailed = true;
+        return;
+      }
+      this.clientToken = clientToken;
+      if (auth.getSelectedProfile() != null) {
+        this.profile = auth.getSelectedProfile();
+      }
+      this.accessToken = auth.getAccessToken();
+    }
+  }
+}
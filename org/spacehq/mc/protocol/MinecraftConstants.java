@@ -1,5 +1,12 @@
 package org.spacehq.mc.protocol;
 
+import java.net.Proxy;
+import org.spacehq.mc.auth.data.GameProfile;
+import org.spacehq.mc.protocol.data.status.handler.ServerInfoBuilder;
+import org.spacehq.mc.protocol.data.status.handler.ServerInfoHandler;
+import org.spacehq.mc.protocol.data.status.handler.ServerPingTimeHandler;
+import org.spacehq.packetlib.FlagKey;
+
 public class MinecraftConstants
 {
   public static final String GAME_VERSION = "1.8.8";
@@ -14,4 +21,16 @@ public class MinecraftConstants
   public static final String SERVER_LOGIN_HANDLER_KEY = "login-handler";
   public static final String PING_KEY = "ping";
   public static final String SERVER_COMPRESSION_THRESHOLD = "compression-threshold";
+  public static final String KICKED_KEY = "kicked";
+  public static final FlagKey<GameProfile> PROFILE_FLAG = FlagKey.create("profile", GameProfile.class);
+  public static final FlagKey<Proxy> AUTH_PROXY_FLAG = FlagKey.create("auth-proxy", Proxy.class);
+  public static final FlagKey<String> ACCESS_TOKEN_FLAG = FlagKey.create("access-token", String.class);
+  public static final FlagKey<ServerInfoHandler> SERVER_INFO_HANDLER_FLAG = FlagKey.create("server-info-handler", ServerInfoHandler.class);
+  public static final FlagKey<ServerPingTimeHandler> SERVER_PING_TIME_HANDLER_FLAG = FlagKey.create("server-ping-time-handler", ServerPingTimeHandler.class);
+  public static final FlagKey<Boolean> VERIFY_USERS_FLAG = FlagKey.create("verify-users", Boolean.class);
+  public static final FlagKey<ServerInfoBuilder> SERVER_INFO_BUILDER_FLAG = FlagKey.create("info-builder", ServerInfoBuilder.class);
+  public static final FlagKey<ServerLoginHandler> SERVER_LOGIN_HANDLER_FLAG = FlagKey.create("login-handler", ServerLoginHandler.class);
+  public static final FlagKey<Number> PING_FLAG = FlagKey.create("ping", Number.class);
+  public static final FlagKey<Integer> SERVER_COMPRESSION_THRESHOLD_FLAG = FlagKey.create("compression-threshold", Integer.class);
+  public static final FlagKey<Boolean> KICKED_FLAG = FlagKey.create("kicked", Boolean.class);
 }
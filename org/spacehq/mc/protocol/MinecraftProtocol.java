@@ -1,5 +1,8 @@
 package org.spacehq.mc.protocol;
 
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
 import java.net.Proxy;
 import java.security.GeneralSecurityException;
 import java.security.Key;
@@ -127,15 +130,27 @@ import org.spacehq.packetlib.crypt.PacketEncryption;
 import org.spacehq.packetlib.packet.DefaultPacketHeader;
 import org.spacehq.packetlib.packet.PacketHeader;
 import org.spacehq.packetlib.packet.PacketProtocol;
+import org.spacehq.packetlib.packet.PacketRegistry;
+import org.spacehq.packetlib.packet.PacketRegistryBuilder;
 
 public class MinecraftProtocol
   extends PacketProtocol
 {
-  private SubProtocol subProtocol = SubProtocol.HANDSHAKE;
+  private static final PacketRegistry CLIENT_HANDSHAKE = createClientHandshake();
+  private static final PacketRegistry SERVER_HANDSHAKE = createServerHandshake();
+  private static final PacketRegistry CLIENT_LOGIN = createClientLogin();
+  private static final PacketRegistry SERVER_LOGIN = createServerLogin();
+  private static final PacketRegistry CLIENT_GAME = createClientGame();
+  private static final PacketRegistry SERVER_GAME = createServerGame();
+  private static final PacketRegistry CLIENT_STATUS = createClientStatus();
+  private static final PacketRegistry SERVER_STATUS = createServerStatus();
+  private volatile SubProtocol subProtocol = SubProtocol.HANDSHAKE;
   private PacketHeader header = new DefaultPacketHeader();
   private AESEncryption encrypt;
   private GameProfile profile;
+  private String clientToken;
   private String accessToken = "";
+  private Promise<Session> loginPromise = GlobalEventExecutor.INSTANCE.newPromise();
   
   private MinecraftProtocol() {}
   
@@ -182,6 +197,7 @@ public class MinecraftProtocol
     }
     auth.login();
     this.profile = auth.getSelectedProfile();
+    this.clientToken = clientToken;
     this.accessToken = auth.getAccessToken();
   }
   
@@ -197,11 +213,31 @@ public class MinecraftProtocol
     return this.profile;
   }
   
+  public String getClientToken()
+  {
+    return this.clientToken;
+  }
+  
   public String getAccessToken()
   {
     return this.accessToken;
   }
   
+  public Future<Session> getLoginFuture()
+  {
+    return this.loginPromise;
+  }
+  
+  protected void completeLogin(Session session)
+  {
+    this.loginPromise.trySuccess(session);
+  }
+  
+  protected void failLogin(String reason, Throwable cause)
+  {
+    this.loginPromise.tryFailure(cause != null ? cause : new IllegalStateException(reason));
+  }
+  
   public String getSRVRecordPrefix()
   {
     return "_minecraft";
@@ -221,17 +257,21 @@ public class MinecraftProtocol
   {
     if (this.profile != null)
     {
-      session.setFlag("profile", this.profile);
-      session.setFlag("access-token", this.accessToken);
+      session.setFlag(MinecraftConstants.PROFILE_FLAG, this.profile);
+      session.setFlag(MinecraftConstants.ACCESS_TOKEN_FLAG, this.accessToken);
     }
-    setSubProtocol(this.subProtocol, true, session);
-    session.addListener(new ClientListener());
+    setSubProtocol(this.subProtocol, true);
+    ClientListener listener = new ClientListener();
+    listener.subscribe(session);
+    session.addListener(listener);
   }
   
   public void newServerSession(Server server, Session session)
   {
-    setSubProtocol(SubProtocol.HANDSHAKE, false, session);
-    session.addListener(new ServerListener());
+    setSubProtocol(SubProtocol.HANDSHAKE, false);
+    ServerListener listener = new ServerListener();
+    listener.subscribe(session);
+    session.addListener(listener);
   }
   
   protected void enableEncryption(Key key)
@@ -251,300 +291,299 @@ public class MinecraftProtocol
     return this.subProtocol;
   }
   
-  protected void setSubProtocol(SubProtocol subProtocol, boolean client, Session session)
+  protected void setSubProtocol(SubProtocol subProtocol, boolean client)
   {
-    clearPackets();
     switch (subProtocol)
     {
     case HANDSHAKE: 
-      if (client) {
-        initClientHandshake(session);
-      } else {
-        initServerHandshake(session);
-      }
+      setPackets(client ? CLIENT_HANDSHAKE : SERVER_HANDSHAKE);
       break;
     case LOGIN: 
-      if (client) {
-        initClientLogin(session);
-      } else {
-        initServerLogin(session);
-      }
+      setPackets(client ? CLIENT_LOGIN : SERVER_LOGIN);
       break;
     case GAME: 
-      if (client) {
-        initClientGame(session);
-      } else {
-        initServerGame(session);
-      }
+      setPackets(client ? CLIENT_GAME : SERVER_GAME);
       break;
     case STATUS: 
-      if (client) {
-        initClientStatus(session);
-      } else {
-        initServerStatus(session);
-      }
+      setPackets(client ? CLIENT_STATUS : SERVER_STATUS);
       break;
     }
     this.subProtocol = subProtocol;
   }
   
-  private void initClientHandshake(Session session)
+  private static PacketRegistry createClientHandshake()
   {
-    registerOutgoing(0, HandshakePacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerOutgoing(0, HandshakePacket.class);
+    return packets.create();
   }
   
-  private void initServerHandshake(Session session)
+  private static PacketRegistry createServerHandshake()
   {
-    registerIncoming(0, HandshakePacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, HandshakePacket.class);
+    return packets.create();
   }
   
-  private void initClientLogin(Session session)
+  private static PacketRegistry createClientLogin()
   {
-    registerIncoming(0, LoginDisconnectPacket.class);
-    registerIncoming(1, EncryptionRequestPacket.class);
-    registerIncoming(2, LoginSuccessPacket.class);
-    registerIncoming(3, LoginSetCompressionPacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, LoginDisconnectPacket.class);
+    packets.registerIncoming(1, EncryptionRequestPacket.class);
+    packets.registerIncoming(2, LoginSuccessPacket.class);
+    packets.registerIncoming(3, LoginSetCompressionPacket.class);
     
-    registerOutgoing(0, LoginStartPacket.class);
-    registerOutgoing(1, EncryptionResponsePacket.class);
+    packets.registerOutgoing(0, LoginStartPacket.class);
+    packets.registerOutgoing(1, EncryptionResponsePacket.class);
+    return packets.create();
   }
   
-  private void initServerLogin(Session session)
+  private static PacketRegistry createServerLogin()
   {
-    registerIncoming(0, LoginStartPacket.class);
-    registerIncoming(1, EncryptionResponsePacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, LoginStartPacket.class);
+    packets.registerIncoming(1, EncryptionResponsePacket.class);
     
-    registerOutgoing(0, LoginDisconnectPacket.class);
-    registerOutgoing(1, EncryptionRequestPacket.class);
-    registerOutgoing(2, LoginSuccessPacket.class);
-    registerOutgoing(3, LoginSetCompressionPacket.class);
+    packets.registerOutgoing(0, LoginDisconnectPacket.class);
+    packets.registerOutgoing(1, EncryptionRequestPacket.class);
+    packets.registerOutgoing(2, LoginSuccessPacket.class);
+    packets.registerOutgoing(3, LoginSetCompressionPacket.class);
+    return packets.create();
   }
   
-  private void initClientGame(Session session)
+  private static PacketRegistry createClientGame()
   {
-    registerIncoming(0, ServerKeepAlivePacket.class);
-    registerIncoming(1, ServerJoinGamePacket.class);
-    registerIncoming(2, ServerChatPacket.class);
-    registerIncoming(3, ServerUpdateTimePacket.class);
-    registerIncoming(4, ServerEntityEquipmentPacket.class);
-    registerIncoming(5, ServerSpawnPositionPacket.class);
-    registerIncoming(6, ServerUpdateHealthPacket.class);
-    registerIncoming(7, ServerRespawnPacket.class);
-    registerIncoming(8, ServerPlayerPositionRotationPacket.class);
-    registerIncoming(9, ServerChangeHeldItemPacket.class);
-    registerIncoming(10, ServerPlayerUseBedPacket.class);
-    registerIncoming(11, ServerAnimationPacket.class);
-    registerIncoming(12, ServerSpawnPlayerPacket.class);
-    registerIncoming(13, ServerCollectItemPacket.class);
-    registerIncoming(14, ServerSpawnObjectPacket.class);
-    registerIncoming(15, ServerSpawnMobPacket.class);
-    registerIncoming(16, ServerSpawnPaintingPacket.class);
-    registerIncoming(17, ServerSpawnExpOrbPacket.class);
-    registerIncoming(18, ServerEntityVelocityPacket.class);
-    registerIncoming(19, ServerDestroyEntitiesPacket.class);
-    registerIncoming(20, ServerEntityMovementPacket.class);
-    registerIncoming(21, ServerEntityPositionPacket.class);
-    registerIncoming(22, ServerEntityRotationPacket.class);
-    registerIncoming(23, ServerEntityPositionRotationPacket.class);
-    registerIncoming(24, ServerEntityTeleportPacket.class);
-    registerIncoming(25, ServerEntityHeadLookPacket.class);
-    registerIncoming(26, ServerEntityStatusPacket.class);
-    registerIncoming(27, ServerEntityAttachPacket.class);
-    registerIncoming(28, ServerEntityMetadataPacket.class);
-    registerIncoming(29, ServerEntityEffectPacket.class);
-    registerIncoming(30, ServerEntityRemoveEffectPacket.class);
-    registerIncoming(31, ServerSetExperiencePacket.class);
-    registerIncoming(32, ServerEntityPropertiesPacket.class);
-    registerIncoming(33, ServerChunkDataPacket.class);
-    registerIncoming(34, ServerMultiBlockChangePacket.class);
-    registerIncoming(35, ServerBlockChangePacket.class);
-    registerIncoming(36, ServerBlockValuePacket.class);
-    registerIncoming(37, ServerBlockBreakAnimPacket.class);
-    registerIncoming(38, ServerMultiChunkDataPacket.class);
-    registerIncoming(39, ServerExplosionPacket.class);
-    registerIncoming(40, ServerPlayEffectPacket.class);
-    registerIncoming(41, ServerPlaySoundPacket.class);
-    registerIncoming(42, ServerSpawnParticlePacket.class);
-    registerIncoming(43, ServerNotifyClientPacket.class);
-    registerIncoming(44, ServerSpawnGlobalEntityPacket.class);
-    registerIncoming(45, ServerOpenWindowPacket.class);
-    registerIncoming(46, ServerCloseWindowPacket.class);
-    registerIncoming(47, ServerSetSlotPacket.class);
-    registerIncoming(48, ServerWindowItemsPacket.class);
-    registerIncoming(49, ServerWindowPropertyPacket.class);
-    registerIncoming(50, ServerConfirmTransactionPacket.class);
-    registerIncoming(51, ServerUpdateSignPacket.class);
-    registerIncoming(52, ServerMapDataPacket.class);
-    registerIncoming(53, ServerUpdateTileEntityPacket.class);
-    registerIncoming(54, ServerOpenTileEntityEditorPacket.class);
-    registerIncoming(55, ServerStatisticsPacket.class);
-    registerIncoming(56, ServerPlayerListEntryPacket.class);
-    registerIncoming(57, ServerPlayerAbilitiesPacket.class);
-    registerIncoming(58, ServerTabCompletePacket.class);
-    registerIncoming(59, ServerScoreboardObjectivePacket.class);
-    registerIncoming(60, ServerUpdateScorePacket.class);
-    registerIncoming(61, ServerDisplayScoreboardPacket.class);
-    registerIncoming(62, ServerTeamPacket.class);
-    registerIncoming(63, ServerPluginMessagePacket.class);
-    registerIncoming(64, ServerDisconnectPacket.class);
-    registerIncoming(65, ServerDifficultyPacket.class);
-    registerIncoming(66, ServerCombatPacket.class);
-    registerIncoming(67, ServerSwitchCameraPacket.class);
-    registerIncoming(68, ServerWorldBorderPacket.class);
-    registerIncoming(69, ServerTitlePacket.class);
-    registerIncoming(70, ServerSetCompressionPacket.class);
-    registerIncoming(71, ServerPlayerListDataPacket.class);
-    registerIncoming(72, ServerResourcePackSendPacket.class);
-    registerIncoming(73, ServerEntityNBTUpdatePacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, ServerKeepAlivePacket.class);
+    packets.registerIncoming(1, ServerJoinGamePacket.class);
+    packets.registerIncoming(2, ServerChatPacket.class);
+    packets.registerIncoming(3, ServerUpdateTimePacket.class);
+    packets.registerIncoming(4, ServerEntityEquipmentPacket.class);
+    packets.registerIncoming(5, ServerSpawnPositionPacket.class);
+    packets.registerIncoming(6, ServerUpdateHealthPacket.class);
+    packets.registerIncoming(7, ServerRespawnPacket.class);
+    packets.registerIncoming(8, ServerPlayerPositionRotationPacket.class);
+    packets.registerIncoming(9, ServerChangeHeldItemPacket.class);
+    packets.registerIncoming(10, ServerPlayerUseBedPacket.class);
+    packets.registerIncoming(11, ServerAnimationPacket.class);
+    packets.registerIncoming(12, ServerSpawnPlayerPacket.class);
+    packets.registerIncoming(13, ServerCollectItemPacket.class);
+    packets.registerIncoming(14, ServerSpawnObjectPacket.class);
+    packets.registerIncoming(15, ServerSpawnMobPacket.class);
+    packets.registerIncoming(16, ServerSpawnPaintingPacket.class);
+    packets.registerIncoming(17, ServerSpawnExpOrbPacket.class);
+    packets.registerIncoming(18, ServerEntityVelocityPacket.class);
+    packets.registerIncoming(19, ServerDestroyEntitiesPacket.class);
+    packets.registerIncoming(20, ServerEntityMovementPacket.class);
+    packets.registerIncoming(21, ServerEntityPositionPacket.class);
+    packets.registerIncoming(22, ServerEntityRotationPacket.class);
+    packets.registerIncoming(23, ServerEntityPositionRotationPacket.class);
+    packets.registerIncoming(24, ServerEntityTeleportPacket.class);
+    packets.registerIncoming(25, ServerEntityHeadLookPacket.class);
+    packets.registerIncoming(26, ServerEntityStatusPacket.class);
+    packets.registerIncoming(27, ServerEntityAttachPacket.class);
+    packets.registerIncoming(28, ServerEntityMetadataPacket.class);
+    packets.registerIncoming(29, ServerEntityEffectPacket.class);
+    packets.registerIncoming(30, ServerEntityRemoveEffectPacket.class);
+    packets.registerIncoming(31, ServerSetExperiencePacket.class);
+    packets.registerIncoming(32, ServerEntityPropertiesPacket.class);
+    packets.registerIncoming(33, ServerChunkDataPacket.class);
+    packets.registerIncoming(34, ServerMultiBlockChangePacket.class);
+    packets.registerIncoming(35, ServerBlockChangePacket.class);
+    packets.registerIncoming(36, ServerBlockValuePacket.class);
+    packets.registerIncoming(37, ServerBlockBreakAnimPacket.class);
+    packets.registerIncoming(38, ServerMultiChunkDataPacket.class);
+    packets.registerIncoming(39, ServerExplosionPacket.class);
+    packets.registerIncoming(40, ServerPlayEffectPacket.class);
+    packets.registerIncoming(41, ServerPlaySoundPacket.class);
+    packets.registerIncoming(42, ServerSpawnParticlePacket.class);
+    packets.registerIncoming(43, ServerNotifyClientPacket.class);
+    packets.registerIncoming(44, ServerSpawnGlobalEntityPacket.class);
+    packets.registerIncoming(45, ServerOpenWindowPacket.class);
+    packets.registerIncoming(46, ServerCloseWindowPacket.class);
+    packets.registerIncoming(47, ServerSetSlotPacket.class);
+    packets.registerIncoming(48, ServerWindowItemsPacket.class);
+    packets.registerIncoming(49, ServerWindowPropertyPacket.class);
+    packets.registerIncoming(50, ServerConfirmTransactionPacket.class);
+    packets.registerIncoming(51, ServerUpdateSignPacket.class);
+    packets.registerIncoming(52, ServerMapDataPacket.class);
+    packets.registerIncoming(53, ServerUpdateTileEntityPacket.class);
+    packets.registerIncoming(54, ServerOpenTileEntityEditorPacket.class);
+    packets.registerIncoming(55, ServerStatisticsPacket.class);
+    packets.registerIncoming(56, ServerPlayerListEntryPacket.class);
+    packets.registerIncoming(57, ServerPlayerAbilitiesPacket.class);
+    packets.registerIncoming(58, ServerTabCompletePacket.class);
+    packets.registerIncoming(59, ServerScoreboardObjectivePacket.class);
+    packets.registerIncoming(60, ServerUpdateScorePacket.class);
+    packets.registerIncoming(61, ServerDisplayScoreboardPacket.class);
+    packets.registerIncoming(62, ServerTeamPacket.class);
+    packets.registerIncoming(63, ServerPluginMessagePacket.class);
+    packets.registerIncoming(64, ServerDisconnectPacket.class);
+    packets.registerIncoming(65, ServerDifficultyPacket.class);
+    packets.registerIncoming(66, ServerCombatPacket.class);
+    packets.registerIncoming(67, ServerSwitchCameraPacket.class);
+    packets.registerIncoming(68, ServerWorldBorderPacket.class);
+    packets.registerIncoming(69, ServerTitlePacket.class);
+    packets.registerIncoming(70, ServerSetCompressionPacket.class);
+    packets.registerIncoming(71, ServerPlayerListDataPacket.class);
+    packets.registerIncoming(72, ServerResourcePackSendPacket.class);
+    packets.registerIncoming(73, ServerEntityNBTUpdatePacket.class);
     
-    registerOutgoing(0, ClientKeepAlivePacket.class);
-    registerOutgoing(1, ClientChatPacket.class);
-    registerOutgoing(2, ClientPlayerInteractEntityPacket.class);
-    registerOutgoing(3, ClientPlayerMovementPacket.class);
-    registerOutgoing(4, ClientPlayerPositionPacket.class);
-    registerOutgoing(5, ClientPlayerRotationPacket.class);
-    registerOutgoing(6, ClientPlayerPositionRotationPacket.class);
-    registerOutgoing(7, ClientPlayerActionPacket.class);
-    registerOutgoing(8, ClientPlayerPlaceBlockPacket.class);
-    registerOutgoing(9, ClientChangeHeldItemPacket.class);
-    registerOutgoing(10, ClientSwingArmPacket.class);
-    registerOutgoing(11, ClientPlayerStatePacket.class);
-    registerOutgoing(12, ClientSteerVehiclePacket.class);
-    registerOutgoing(13, ClientCloseWindowPacket.class);
-    registerOutgoing(14, ClientWindowActionPacket.class);
-    registerOutgoing(15, ClientConfirmTransactionPacket.class);
-    registerOutgoing(16, ClientCreativeInventoryActionPacket.class);
-    registerOutgoing(17, ClientEnchantItemPacket.class);
-    registerOutgoing(18, ClientUpdateSignPacket.class);
-    registerOutgoing(19, ClientPlayerAbilitiesPacket.class);
-    registerOutgoing(20, ClientTabCompletePacket.class);
-    registerOutgoing(21, ClientSettingsPacket.class);
-    registerOutgoing(22, ClientRequestPacket.class);
-    registerOutgoing(23, ClientPluginMessagePacket.class);
-    registerOutgoing(24, ClientSpectatePacket.class);
-    registerOutgoing(25, ClientResourcePackStatusPacket.class);
+    packets.registerOutgoing(0, ClientKeepAlivePacket.class);
+    packets.registerOutgoing(1, ClientChatPacket.class);
+    packets.registerOutgoing(2, ClientPlayerInteractEntityPacket.class);
+    packets.registerOutgoing(3, ClientPlayerMovementPacket.class);
+    packets.registerOutgoing(4, ClientPlayerPositionPacket.class);
+    packets.registerOutgoing(5, ClientPlayerRotationPacket.class);
+    packets.registerOutgoing(6, ClientPlayerPositionRotationPacket.class);
+    packets.registerOutgoing(7, ClientPlayerActionPacket.class);
+    packets.registerOutgoing(8, ClientPlayerPlaceBlockPacket.class);
+    packets.registerOutgoing(9, ClientChangeHeldItemPacket.class);
+    packets.registerOutgoing(10, ClientSwingArmPacket.class);
+    packets.registerOutgoing(11, ClientPlayerStatePacket.class);
+    packets.registerOutgoing(12, ClientSteerVehiclePacket.class);
+    packets.registerOutgoing(13, ClientCloseWindowPacket.class);
+    packets.registerOutgoing(14, ClientWindowActionPacket.class);
+    packets.registerOutgoing(15, ClientConfirmTransactionPacket.class);
+    packets.registerOutgoing(16, ClientCreativeInventoryActionPacket.class);
+    packets.registerOutgoing(17, ClientEnchantItemPacket.class);
+    packets.registerOutgoing(18, ClientUpdateSignPacket.class);
+    packets.registerOutgoing(19, ClientPlayerAbilitiesPacket.class);
+    packets.registerOutgoing(20, ClientTabCompletePacket.class);
+    packets.registerOutgoing(21, ClientSettingsPacket.class);
+    packets.registerOutgoing(22, ClientRequestPacket.class);
+    packets.registerOutgoing(23, ClientPluginMessagePacket.class);
+    packets.registerOutgoing(24, ClientSpectatePacket.class);
+    packets.registerOutgoing(25, ClientResourcePackStatusPacket.class);
+    return packets.create();
   }
   
-  private void initServerGame(Session session)
+  private static PacketRegistry createServerGame()
   {
-    registerIncoming(0, ClientKeepAlivePacket.class);
-    registerIncoming(1, ClientChatPacket.class);
-    registerIncoming(2, ClientPlayerInteractEntityPacket.class);
-    registerIncoming(3, ClientPlayerMovementPacket.class);
-    registerIncoming(4, ClientPlayerPositionPacket.class);
-    registerIncoming(5, ClientPlayerRotationPacket.class);
-    registerIncoming(6, ClientPlayerPositionRotationPacket.class);
-    registerIncoming(7, ClientPlayerActionPacket.class);
-    registerIncoming(8, ClientPlayerPlaceBlockPacket.class);
-    registerIncoming(9, ClientChangeHeldItemPacket.class);
-    registerIncoming(10, ClientSwingArmPacket.class);
-    registerIncoming(11, ClientPlayerStatePacket.class);
-    registerIncoming(12, ClientSteerVehiclePacket.class);
-    registerIncoming(13, ClientCloseWindowPacket.class);
-    registerIncoming(14, ClientWindowActionPacket.class);
-    registerIncoming(15, ClientConfirmTransactionPacket.class);
-    registerIncoming(16, ClientCreativeInventoryActionPacket.class);
-    registerIncoming(17, ClientEnchantItemPacket.class);
-    registerIncoming(18, ClientUpdateSignPacket.class);
-    registerIncoming(19, ClientPlayerAbilitiesPacket.class);
-    registerIncoming(20, ClientTabCompletePacket.class);
-    registerIncoming(21, ClientSettingsPacket.class);
-    registerIncoming(22, ClientRequestPacket.class);
-    registerIncoming(23, ClientPluginMessagePacket.class);
-    registerIncoming(24, ClientSpectatePacket.class);
-    registerIncoming(25, ClientResourcePackStatusPacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, ClientKeepAlivePacket.class);
+    packets.registerIncoming(1, ClientChatPacket.class);
+    packets.registerIncoming(2, ClientPlayerInteractEntityPacket.class);
+    packets.registerIncoming(3, ClientPlayerMovementPacket.class);
+    packets.registerIncoming(4, ClientPlayerPositionPacket.class);
+    packets.registerIncoming(5, ClientPlayerRotationPacket.class);
+    packets.registerIncoming(6, ClientPlayerPositionRotationPacket.class);
+    packets.registerIncoming(7, ClientPlayerActionPacket.class);
+    packets.registerIncoming(8, ClientPlayerPlaceBlockPacket.class);
+    packets.registerIncoming(9, ClientChangeHeldItemPacket.class);
+    packets.registerIncoming(10, ClientSwingArmPacket.class);
+    packets.registerIncoming(11, ClientPlayerStatePacket.class);
+    packets.registerIncoming(12, ClientSteerVehiclePacket.class);
+    packets.registerIncoming(13, ClientCloseWindowPacket.class);
+    packets.registerIncoming(14, ClientWindowActionPacket.class);
+    packets.registerIncoming(15, ClientConfirmTransactionPacket.class);
+    packets.registerIncoming(16, ClientCreativeInventoryActionPacket.class);
+    packets.registerIncoming(17, ClientEnchantItemPacket.class);
+    packets.registerIncoming(18, ClientUpdateSignPacket.class);
+    packets.registerIncoming(19, ClientPlayerAbilitiesPacket.class);
+    packets.registerIncoming(20, ClientTabCompletePacket.class);
+    packets.registerIncoming(21, ClientSettingsPacket.class);
+    packets.registerIncoming(22, ClientRequestPacket.class);
+    packets.registerIncoming(23, ClientPluginMessagePacket.class);
+    packets.registerIncoming(24, ClientSpectatePacket.class);
+    packets.registerIncoming(25, ClientResourcePackStatusPacket.class);
     
-    registerOutgoing(0, ServerKeepAlivePacket.class);
-    registerOutgoing(1, ServerJoinGamePacket.class);
-    registerOutgoing(2, ServerChatPacket.class);
-    registerOutgoing(3, ServerUpdateTimePacket.class);
-    registerOutgoing(4, ServerEntityEquipmentPacket.class);
-    registerOutgoing(5, ServerSpawnPositionPacket.class);
-    registerOutgoing(6, ServerUpdateHealthPacket.class);
-    registerOutgoing(7, ServerRespawnPacket.class);
-    registerOutgoing(8, ServerPlayerPositionRotationPacket.class);
-    registerOutgoing(9, ServerChangeHeldItemPacket.class);
-    registerOutgoing(10, ServerPlayerUseBedPacket.class);
-    registerOutgoing(11, ServerAnimationPacket.class);
-    registerOutgoing(12, ServerSpawnPlayerPacket.class);
-    registerOutgoing(13, ServerCollectItemPacket.class);
-    registerOutgoing(14, ServerSpawnObjectPacket.class);
-    registerOutgoing(15, ServerSpawnMobPacket.class);
-    registerOutgoing(16, ServerSpawnPaintingPacket.class);
-    registerOutgoing(17, ServerSpawnExpOrbPacket.class);
-    registerOutgoing(18, ServerEntityVelocityPacket.class);
-    registerOutgoing(19, ServerDestroyEntitiesPacket.class);
-    registerOutgoing(20, ServerEntityMovementPacket.class);
-    registerOutgoing(21, ServerEntityPositionPacket.class);
-    registerOutgoing(22, ServerEntityRotationPacket.class);
-    registerOutgoing(23, ServerEntityPositionRotationPacket.class);
-    registerOutgoing(24, ServerEntityTeleportPacket.class);
-    registerOutgoing(25, ServerEntityHeadLookPacket.class);
-    registerOutgoing(26, ServerEntityStatusPacket.class);
-    registerOutgoing(27, ServerEntityAttachPacket.class);
-    registerOutgoing(28, ServerEntityMetadataPacket.class);
-    registerOutgoing(29, ServerEntityEffectPacket.class);
-    registerOutgoing(30, ServerEntityRemoveEffectPacket.class);
-    registerOutgoing(31, ServerSetExperiencePacket.class);
-    registerOutgoing(32, ServerEntityPropertiesPacket.class);
-    registerOutgoing(33, ServerChunkDataPacket.class);
-    registerOutgoing(34, ServerMultiBlockChangePacket.class);
-    registerOutgoing(35, ServerBlockChangePacket.class);
-    registerOutgoing(36, ServerBlockValuePacket.class);
-    registerOutgoing(37, ServerBlockBreakAnimPacket.class);
-    registerOutgoing(38, ServerMultiChunkDataPacket.class);
-    registerOutgoing(39, ServerExplosionPacket.class);
-    registerOutgoing(40, ServerPlayEffectPacket.class);
-    registerOutgoing(41, ServerPlaySoundPacket.class);
-    registerOutgoing(42, ServerSpawnParticlePacket.class);
-    registerOutgoing(43, ServerNotifyClientPacket.class);
-    registerOutgoing(44, ServerSpawnGlobalEntityPacket.class);
-    registerOutgoing(45, ServerOpenWindowPacket.class);
-    registerOutgoing(46, ServerCloseWindowPacket.class);
-    registerOutgoing(47, ServerSetSlotPacket.class);
-    registerOutgoing(48, ServerWindowItemsPacket.class);
-    registerOutgoing(49, ServerWindowPropertyPacket.class);
-    registerOutgoing(50, ServerConfirmTransactionPacket.class);
-    registerOutgoing(51, ServerUpdateSignPacket.class);
-    registerOutgoing(52, ServerMapDataPacket.class);
-    registerOutgoing(53, ServerUpdateTileEntityPacket.class);
-    registerOutgoing(54, ServerOpenTileEntityEditorPacket.class);
-    registerOutgoing(55, ServerStatisticsPacket.class);
-    registerOutgoing(56, ServerPlayerListEntryPacket.class);
-    registerOutgoing(57, ServerPlayerAbilitiesPacket.class);
-    registerOutgoing(58, ServerTabCompletePacket.class);
-    registerOutgoing(59, ServerScoreboardObjectivePacket.class);
-    registerOutgoing(60, ServerUpdateScorePacket.class);
-    registerOutgoing(61, ServerDisplayScoreboardPacket.class);
-    registerOutgoing(62, ServerTeamPacket.class);
-    registerOutgoing(63, ServerPluginMessagePacket.class);
-    registerOutgoing(64, ServerDisconnectPacket.class);
-    registerOutgoing(65, ServerDifficultyPacket.class);
-    registerOutgoing(66, ServerCombatPacket.class);
-    registerOutgoing(67, ServerSwitchCameraPacket.class);
-    registerOutgoing(68, ServerWorldBorderPacket.class);
-    registerOutgoing(69, ServerTitlePacket.class);
-    registerOutgoing(70, ServerSetCompressionPacket.class);
-    registerOutgoing(71, ServerPlayerListDataPacket.class);
-    registerOutgoing(72, ServerResourcePackSendPacket.class);
-    registerOutgoing(73, ServerEntityNBTUpdatePacket.class);
+    packets.registerOutgoing(0, ServerKeepAlivePacket.class);
+    packets.registerOutgoing(1, ServerJoinGamePacket.class);
+    packets.registerOutgoing(2, ServerChatPacket.class);
+    packets.registerOutgoing(3, ServerUpdateTimePacket.class);
+    packets.registerOutgoing(4, ServerEntityEquipmentPacket.class);
+    packets.registerOutgoing(5, ServerSpawnPositionPacket.class);
+    packets.registerOutgoing(6, ServerUpdateHealthPacket.class);
+    packets.registerOutgoing(7, ServerRespawnPacket.class);
+    packets.registerOutgoing(8, ServerPlayerPositionRotationPacket.class);
+    packets.registerOutgoing(9, ServerChangeHeldItemPacket.class);
+    packets.registerOutgoing(10, ServerPlayerUseBedPacket.class);
+    packets.registerOutgoing(11, ServerAnimationPacket.class);
+    packets.registerOutgoing(12, ServerSpawnPlayerPacket.class);
+    packets.registerOutgoing(13, ServerCollectItemPacket.class);
+    packets.registerOutgoing(14, ServerSpawnObjectPacket.class);
+    packets.registerOutgoing(15, ServerSpawnMobPacket.class);
+    packets.registerOutgoing(16, ServerSpawnPaintingPacket.class);
+    packets.registerOutgoing(17, ServerSpawnExpOrbPacket.class);
+    packets.registerOutgoing(18, ServerEntityVelocityPacket.class);
+    packets.registerOutgoing(19, ServerDestroyEntitiesPacket.class);
+    packets.registerOutgoing(20, ServerEntityMovementPacket.class);
+    packets.registerOutgoing(21, ServerEntityPositionPacket.class);
+    packets.registerOutgoing(22, ServerEntityRotationPacket.class);
+    packets.registerOutgoing(23, ServerEntityPositionRotationPacket.class);
+    packets.registerOutgoing(24, ServerEntityTeleportPacket.class);
+    packets.registerOutgoing(25, ServerEntityHeadLookPacket.class);
+    packets.registerOutgoing(26, ServerEntityStatusPacket.class);
+    packets.registerOutgoing(27, ServerEntityAttachPacket.class);
+    packets.registerOutgoing(28, ServerEntityMetadataPacket.class);
+    packets.registerOutgoing(29, ServerEntityEffectPacket.class);
+    packets.registerOutgoing(30, ServerEntityRemoveEffectPacket.class);
+    packets.registerOutgoing(31, ServerSetExperiencePacket.class);
+    packets.registerOutgoing(32, ServerEntityPropertiesPacket.class);
+    packets.registerOutgoing(33, ServerChunkDataPacket.class);
+    packets.registerOutgoing(34, ServerMultiBlockChangePacket.class);
+    packets.registerOutgoing(35, ServerBlockChangePacket.class);
+    packets.registerOutgoing(36, ServerBlockValuePacket.class);
+    packets.registerOutgoing(37, ServerBlockBreakAnimPacket.class);
+    packets.registerOutgoing(38, ServerMultiChunkDataPacket.class);
+    packets.registerOutgoing(39, ServerExplosionPacket.class);
+    packets.registerOutgoing(40, ServerPlayEffectPacket.class);
+    packets.registerOutgoing(41, ServerPlaySoundPacket.class);
+    packets.registerOutgoing(42, ServerSpawnParticlePacket.class);
+    packets.registerOutgoing(43, ServerNotifyClientPacket.class);
+    packets.registerOutgoing(44, ServerSpawnGlobalEntityPacket.class);
+    packets.registerOutgoing(45, ServerOpenWindowPacket.class);
+    packets.registerOutgoing(46, ServerCloseWindowPacket.class);
+    packets.registerOutgoing(47, ServerSetSlotPacket.class);
+    packets.registerOutgoing(48, ServerWindowItemsPacket.class);
+    packets.registerOutgoing(49, ServerWindowPropertyPacket.class);
+    packets.registerOutgoing(50, ServerConfirmTransactionPacket.class);
+    packets.registerOutgoing(51, ServerUpdateSignPacket.class);
+    packets.registerOutgoing(52, ServerMapDataPacket.class);
+    packets.registerOutgoing(53, ServerUpdateTileEntityPacket.class);
+    packets.registerOutgoing(54, ServerOpenTileEntityEditorPacket.class);
+    packets.registerOutgoing(55, ServerStatisticsPacket.class);
+    packets.registerOutgoing(56, ServerPlayerListEntryPacket.class);
+    packets.registerOutgoing(57, ServerPlayerAbilitiesPacket.class);
+    packets.registerOutgoing(58, ServerTabCompletePacket.class);
+    packets.registerOutgoing(59, ServerScoreboardObjectivePacket.class);
+    packets.registerOutgoing(60, ServerUpdateScorePacket.class);
+    packets.registerOutgoing(61, ServerDisplayScoreboardPacket.class);
+    packets.registerOutgoing(62, ServerTeamPacket.class);
+    packets.registerOutgoing(63, ServerPluginMessagePacket.class);
+    packets.registerOutgoing(64, ServerDisconnectPacket.class);
+    packets.registerOutgoing(65, ServerDifficultyPacket.class);
+    packets.registerOutgoing(66, ServerCombatPacket.class);
+    packets.registerOutgoing(67, ServerSwitchCameraPacket.class);
+    packets.registerOutgoing(68, ServerWorldBorderPacket.class);
+    packets.registerOutgoing(69, ServerTitlePacket.class);
+    packets.registerOutgoing(70, ServerSetCompressionPacket.class);
+    packets.registerOutgoing(71, ServerPlayerListDataPacket.class);
+    packets.registerOutgoing(72, ServerResourcePackSendPacket.class);
+    packets.registerOutgoing(73, ServerEntityNBTUpdatePacket.class);
+    return packets.create();
   }
   
-  private void initClientStatus(Session session)
+  private static PacketRegistry createClientStatus()
   {
-    registerIncoming(0, StatusResponsePacket.class);
-    registerIncoming(1, StatusPongPacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, StatusResponsePacket.class);
+    packets.registerIncoming(1, StatusPongPacket.class);
     
-    registerOutgoing(0, StatusQueryPacket.class);
-    registerOutgoing(1, StatusPingPacket.class);
+    packets.registerOutgoing(0, StatusQueryPacket.class);
+    packets.registerOutgoing(1, StatusPingPacket.class);
+    return packets.create();
   }
   
-  private void initServerStatus(Session session)
+  private static PacketRegistry createServerStatus()
   {
-    registerIncoming(0, StatusQueryPacket.class);
-    registerIncoming(1, StatusPingPacket.class);
+    PacketRegistryBuilder packets = new PacketRegistryBuilder();
+    packets.registerIncoming(0, StatusQueryPacket.class);
+    packets.registerIncoming(1, StatusPingPacket.class);
     
-    registerOutgoing(0, StatusResponsePacket.class);
-    registerOutgoing(1, StatusPongPacket.class);
+    packets.registerOutgoing(0, StatusResponsePacket.class);
+    packets.registerOutgoing(1, StatusPongPacket.class);
+    return packets.create();
   }
 }
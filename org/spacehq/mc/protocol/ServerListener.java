@@ -5,8 +5,13 @@ import java.net.Proxy;
 import java.security.KeyPair;
 import java.security.PrivateKey;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.WeakHashMap;
 import javax.crypto.SecretKey;
 import org.spacehq.mc.auth.data.GameProfile;
 import org.spacehq.mc.auth.exception.request.RequestException;
@@ -34,6 +39,8 @@ import org.spacehq.packetlib.event.session.ConnectedEvent;
 import org.spacehq.packetlib.event.session.DisconnectingEvent;
 import org.spacehq.packetlib.event.session.PacketReceivedEvent;
 import org.spacehq.packetlib.event.session.SessionAdapter;
+import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.PacketHandler;
 
 public class ServerListener
   extends SessionAdapter
@@ -44,96 +51,127 @@ public class ServerListener
   private String username = "";
   private long lastPingTime = 0L;
   private int lastPingId = 0;
+  private Map<Class<? extends Packet>, PacketHandler<?>> handlers = new HashMap();
+  private Set<Session> subscribed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap()));
   
   public ServerListener()
   {
     new Random().nextBytes(this.verifyToken);
-  }
-  
-  public void connected(ConnectedEvent event)
-  {
-    event.getSession().setFlag("ping", Integer.valueOf(0));
-  }
-  
-  public void packetReceived(PacketReceivedEvent event)
-  {
-    MinecraftProtocol protocol = (MinecraftProtocol)event.getSession().getPacketProtocol();
-    if ((protocol.getSubProtocol() == SubProtocol.HANDSHAKE) && 
-      ((event.getPacket() instanceof HandshakePacket)))
+    on(HandshakePacket.class, new PacketHandler<HandshakePacket>()
     {
-      HandshakePacket packet = (HandshakePacket)event.getPacket();
-      switch (packet.getIntent())
+      public void handle(Session session, HandshakePacket packet)
       {
-      case STATUS: 
-        protocol.setSubProtocol(SubProtocol.STATUS, false, event.getSession());
-        break;
-      case LOGIN: 
-        protocol.setSubProtocol(SubProtocol.LOGIN, false, event.getSession());
-        if (packet.getProtocolVersion() > 47) {
-          event.getSession().disconnect("Outdated server! I'm still on 1.8.8.");
-        } else if (packet.getProtocolVersion() < 47) {
-          event.getSession().disconnect("Outdated client! Please use 1.8.8.");
+        MinecraftProtocol protocol = (MinecraftProtocol)session.getPacketProtocol();
+        switch (packet.getIntent())
+        {
+        case STATUS: 
+          protocol.setSubProtocol(SubProtocol.STATUS, false);
+          break;
+        case LOGIN: 
+          protocol.setSubProtocol(SubProtocol.LOGIN, false);
+          if (packet.getProtocolVersion() > 47) {
+            session.disconnect("Outdated server! I'm still on 1.8.8.");
+          } else if (packet.getProtocolVersion() < 47) {
+            session.disconnect("Outdated client! Please use 1.8.8.");
+          }
+          break;
+        default: 
+          throw new UnsupportedOperationException("Invalid client intent: " + packet.getIntent());
         }
-        break;
-      default: 
-        throw new UnsupportedOperationException("Invalid client intent: " + packet.getIntent());
       }
-    }
-    if (protocol.getSubProtocol() == SubProtocol.LOGIN) {
-      if ((event.getPacket() instanceof LoginStartPacket))
+    });
+    on(LoginStartPacket.class, new PacketHandler<LoginStartPacket>()
+    {
+      public void handle(Session session, LoginStartPacket packet)
       {
-        this.username = ((LoginStartPacket)event.getPacket()).getUsername();
+        ServerListener.this.username = packet.getUsername();
         
-        boolean verify = event.getSession().hasFlag("verify-users") ? ((Boolean)event.getSession().getFlag("verify-users")).booleanValue() : true;
+        boolean verify = session.hasFlag(MinecraftConstants.VERIFY_USERS_FLAG) ? session.getFlag(MinecraftConstants.VERIFY_USERS_FLAG).booleanValue() : true;
         if (verify) {
-          event.getSession().send(new EncryptionRequestPacket(this.serverId, KEY_PAIR.getPublic(), this.verifyToken));
+          session.send(new EncryptionRequestPacket(ServerListener.this.serverId, KEY_PAIR.getPublic(), ServerListener.this.verifyToken));
         } else {
-          new Thread(new UserAuthTask(event.getSession(), null)).start();
+          new Thread(new UserAuthTask(session, null)).start();
         }
       }
-      else if ((event.getPacket() instanceof EncryptionResponsePacket))
+    });
+    on(EncryptionResponsePacket.class, new PacketHandler<EncryptionResponsePacket>()
+    {
+      public void handle(Session session, EncryptionResponsePacket packet)
       {
-        EncryptionResponsePacket packet = (EncryptionResponsePacket)event.getPacket();
         PrivateKey privateKey = KEY_PAIR.getPrivate();
-        if (!Arrays.equals(this.verifyToken, packet.getVerifyToken(privateKey)))
+        if (!Arrays.equals(ServerListener.this.verifyToken, packet.getVerifyToken(privateKey)))
         {
-          event.getSession().disconnect("Invalid nonce!");
+          session.disconnect("Invalid nonce!");
           return;
         }
         SecretKey key = packet.getSecretKey(privateKey);
-        protocol.enableEncryption(key);
-        new Thread(new UserAuthTask(event.getSession(), key)).start();
+        ((MinecraftProtocol)session.getPacketProtocol()).enableEncryption(key);
+        new Thread(new UserAuthTask(session, key)).start();
       }
-    }
-    if (protocol.getSubProtocol() == SubProtocol.STATUS) {
-      if ((event.getPacket() instanceof StatusQueryPacket))
+    });
+    on(StatusQueryPacket.class, new PacketHandler<StatusQueryPacket>()
+    {
+      public void handle(Session session, StatusQueryPacket packet)
       {
-        ServerInfoBuilder builder = (ServerInfoBuilder)event.getSession().getFlag("info-builder");
+        ServerInfoBuilder builder = session.getFlag(MinecraftConstants.SERVER_INFO_BUILDER_FLAG);
         if (builder == null)
         {
-          event.getSession().disconnect("No server info builder set.");
+          session.disconnect("No server info builder set.");
           return;
         }
-        ServerStatusInfo info = builder.buildInfo(event.getSession());
-        event.getSession().send(new StatusResponsePacket(info));
+        ServerStatusInfo info = builder.buildInfo(session);
+        session.send(new StatusResponsePacket(info));
       }
-      else if ((event.getPacket() instanceof StatusPingPacket))
+    });
+    on(StatusPingPacket.class, new PacketHandler<StatusPingPacket>()
+    {
+      public void handle(Session session, StatusPingPacket packet)
       {
-        event.getSession().send(new StatusPongPacket(((StatusPingPacket)event.getPacket()).getPingTime()));
+        session.send(new StatusPongPacket(packet.getPingTime()));
       }
-    }
-    if ((protocol.getSubProtocol() == SubProtocol.GAME) && 
-      ((event.getPacket() instanceof ClientKeepAlivePacket)))
+    });
+    on(ClientKeepAlivePacket.class, new PacketHandler<ClientKeepAlivePacket>()
     {
-      ClientKeepAlivePacket packet = (ClientKeepAlivePacket)event.getPacket();
-      if (packet.getPingId() == this.lastPingId)
+      public void handle(Session session, ClientKeepAlivePacket packet)
       {
-        long time = System.currentTimeMillis() - this.lastPingTime;
-        event.getSession().setFlag("ping", Long.valueOf(time));
+        if (packet.getPingId() == ServerListener.this.lastPingId)
+        {
+          long time = System.currentTimeMillis() - ServerListener.this.lastPingTime;
+          session.setFlag(MinecraftConstants.PING_FLAG, Long.valueOf(time));
+        }
       }
+    });
+  }
+  
+  private <T extends Packet> void on(Class<T> packet, PacketHandler<? super T> handler)
+  {
+    this.handlers.put(packet, handler);
+  }
+  
+  public void subscribe(Session session)
+  {
+    for (Map.Entry<Class<? extends Packet>, PacketHandler<?>> entry : this.handlers.entrySet()) {
+      session.on((Class)entry.getKey(), (PacketHandler)entry.getValue());
+    }
+    this.subscribed.add(session);
+  }
+  
+  public void packetReceived(PacketReceivedEvent event)
+  {
+    if (this.subscribed.contains(event.getSession())) {
+      return;
+    }
+    PacketHandler<Packet> handler = (PacketHandler)this.handlers.get(event.getPacket().getClass());
+    if (handler != null) {
+      handler.handle(event.getSession(), event.getPacket());
     }
   }
   
+  public void connected(ConnectedEvent event)
+  {
+    event.getSession().setFlag(MinecraftConstants.PING_FLAG, Integer.valueOf(0));
+  }
+  
   public void disconnecting(DisconnectingEvent event)
   {
     MinecraftProtocol protocol = (MinecraftProtocol)event.getSession().getPacketProtocol();
@@ -158,12 +196,12 @@ public class ServerListener
     
     public void run()
     {
-      boolean verify = this.session.hasFlag("verify-users") ? ((Boolean)this.session.getFlag("verify-users")).booleanValue() : true;
+      boolean verify = this.session.hasFlag(MinecraftConstants.VERIFY_USERS_FLAG) ? this.session.getFlag(MinecraftConstants.VERIFY_USERS_FLAG).booleanValue() : true;
       
       GameProfile profile = null;
       if ((verify) && (this.key != null))
       {
-        Proxy proxy = (Proxy)this.session.getFlag("auth-proxy");
+        Proxy proxy = this.session.getFlag(MinecraftConstants.AUTH_PROXY_FLAG);
         if (proxy == null) {
           proxy = Proxy.NO_PROXY;
         }
@@ -184,13 +222,13 @@ public class ServerListener
       {
         profile = new GameProfile(UUID.nameUUIDFromBytes(("OfflinePlayer:" + ServerListener.this.username).getBytes()), ServerListener.this.username);
       }
-      int threshold = ((Integer)this.session.getFlag("compression-threshold")).intValue();
+      int threshold = this.session.getFlag(MinecraftConstants.SERVER_COMPRESSION_THRESHOLD_FLAG).intValue();
       this.session.send(new LoginSetCompressionPacket(threshold));
       this.session.setCompressionThreshold(threshold);
       this.session.send(new LoginSuccessPacket(profile));
-      this.session.setFlag("profile", profile);
-      ((MinecraftProtocol)this.session.getPacketProtocol()).setSubProtocol(SubProtocol.GAME, false, this.session);
-      ServerLoginHandler handler = (ServerLoginHandler)this.session.getFlag("login-handler");
+      this.session.setFlag(MinecraftConstants.PROFILE_FLAG, profile);
+      ((MinecraftProtocol)this.session.getPacketProtocol()).setSubProtocol(SubProtocol.GAME, false);
+      ServerLoginHandler handler = this.session.getFlag(MinecraftConstants.SERVER_LOGIN_HANDLER_FLAG);
       if (handler != null) {
         handler.loggedIn(this.session);
       }
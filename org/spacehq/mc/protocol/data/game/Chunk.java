@@ -35,12 +35,7 @@ public class Chunk
   
   public boolean isEmpty()
   {
-    for (short block : this.blocks.getData()) {
-      if (block != 0) {
-        return false;
-      }
-    }
-    return true;
+    return this.blocks.isEmpty();
   }
   
   public boolean equals(Object o)
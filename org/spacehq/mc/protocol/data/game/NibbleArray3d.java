@@ -4,25 +4,75 @@ import java.util.Arrays;
 
 public class NibbleArray3d
 {
+  private int size;
   private byte[] data;
+  private int value;
   
   public NibbleArray3d(int size)
   {
-    this.data = new byte[size >> 1];
+    this.size = size >> 1;
   }
   
   public NibbleArray3d(byte[] array)
   {
+    this.size = array.length;
     this.data = array;
   }
   
   public byte[] getData()
   {
+    if (this.data == null)
+    {
+      byte[] data = new byte[this.size];
+      copyTo(data, 0);
+      this.data = data;
+    }
     return this.data;
   }
   
+  public boolean isPaletted()
+  {
+    return this.data == null;
+  }
+  
+  public void load(byte[] array, int offset)
+  {
+    if (this.data != null)
+    {
+      System.arraycopy(array, offset, this.data, 0, this.size);
+      return;
+    }
+    byte first = this.size > 0 ? array[offset] : 0;
+    if ((first & 0xF) == (first >> 4 & 0xF))
+    {
+      int index = 0;
+      while ((index < this.size) && (array[(offset + index)] == first)) {
+        index++;
+      }
+      if (index == this.size)
+      {
+        this.value = (first & 0xF);
+        return;
+      }
+    }
+    this.data = new byte[this.size];
+    System.arraycopy(array, offset, this.data, 0, this.size);
+  }
+  
+  public void copyTo(byte[] array, int offset)
+  {
+    if (this.data != null) {
+      System.arraycopy(this.data, 0, array, offset, this.size);
+    } else {
+      Arrays.fill(array, offset, offset + this.size, (byte)(this.value | this.value << 4));
+    }
+  }
+  
   public int get(int x, int y, int z)
   {
+    if (this.data == null) {
+      return this.value;
+    }
     int key = y << 8 | z << 4 | x;
     int index = key >> 1;
     int part = key & 0x1;
@@ -31,6 +81,13 @@ public class NibbleArray3d
   
   public void set(int x, int y, int z, int val)
   {
+    if (this.data == null)
+    {
+      if ((val & 0xF) == this.value) {
+        return;
+      }
+      getData();
+    }
     int key = y << 8 | z << 4 | x;
     int index = key >> 1;
     int part = key & 0x1;
@@ -43,6 +100,11 @@ public class NibbleArray3d
   
   public void fill(int val)
   {
+    if (this.data == null)
+    {
+      this.value = (val & 0xF);
+      return;
+    }
     for (int index = 0; index < this.data.length << 1; index++)
     {
       int ind = index >> 1;
@@ -64,14 +126,36 @@ public class NibbleArray3d
       return false;
     }
     NibbleArray3d that = (NibbleArray3d)o;
-    if (!Arrays.equals(this.data, that.data)) {
+    if ((this.data != null) && (that.data != null)) {
+      return Arrays.equals(this.data, that.data);
+    }
+    if (this.size != that.size) {
       return false;
     }
+    if ((this.data == null) && (that.data == null)) {
+      return this.value == that.value;
+    }
+    byte[] data = this.data != null ? this.data : that.data;
+    int value = this.data != null ? that.value : this.value;
+    byte packed = (byte)(value | value << 4);
+    for (byte b : data) {
+      if (b != packed) {
+        return false;
+      }
+    }
     return true;
   }
   
   public int hashCode()
   {
-    return Arrays.hashCode(this.data);
+    if (this.data != null) {
+      return Arrays.hashCode(this.data);
+    }
+    byte value = (byte)(this.value | this.value << 4);
+    int result = 1;
+    for (int index = 0; index < this.size; index++) {
+      result = 31 * result + value;
+    }
+    return result;
   }
 }
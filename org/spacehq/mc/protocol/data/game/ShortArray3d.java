@@ -4,31 +4,162 @@ import java.util.Arrays;
 
 public class ShortArray3d
 {
+  private static final int MAX_PALETTE_SIZE = 256;
+  private int size;
   private short[] data;
+  private boolean exposed;
+  private short[] palette;
+  private int paletteSize;
+  private long[] indices;
+  private int bitsShift;
+  private int nonZero;
   
   public ShortArray3d(int size)
   {
-    this.data = new short[size];
+    this.size = size;
+    this.palette = new short[1];
+    this.paletteSize = 1;
   }
   
   public ShortArray3d(short[] array)
   {
+    this.size = array.length;
     this.data = array;
+    this.exposed = true;
   }
   
   public short[] getData()
   {
+    if (this.data == null)
+    {
+      short[] data = new short[this.size];
+      copyTo(data, 0);
+      this.data = data;
+      this.palette = null;
+      this.indices = null;
+    }
+    this.exposed = true;
     return this.data;
   }
   
+  public int size()
+  {
+    return this.size;
+  }
+  
+  public boolean isPaletted()
+  {
+    return this.data == null;
+  }
+  
+  public int getPaletteSize()
+  {
+    return this.data == null ? this.paletteSize : 0;
+  }
+  
+  public boolean isEmpty()
+  {
+    if (this.exposed)
+    {
+      for (short value : this.data) {
+        if (value != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return this.nonZero == 0;
+  }
+  
+  public void load(short[] array, int offset)
+  {
+    if (this.exposed)
+    {
+      System.arraycopy(array, offset, this.data, 0, this.size);
+      return;
+    }
+    short[] palette = new short[16];
+    int paletteSize = 0;
+    short[] keys = new short[512];
+    int[] slots = new int[512];
+    byte[] values = new byte[this.size];
+    int nonZero = 0;
+    short last = 0;
+    int lastIndex = -1;
+    for (int index = 0; index < this.size; index++)
+    {
+      short value = array[(offset + index)];
+      if ((value != last) || (lastIndex < 0))
+      {
+        int slot = value * -1640531535 >>> 23;
+        while ((slots[slot] != 0) && (keys[slot] != value)) {
+          slot = slot + 1 & 0x1FF;
+        }
+        if (slots[slot] == 0)
+        {
+          if (paletteSize == 256)
+          {
+            this.data = new short[this.size];
+            System.arraycopy(array, offset, this.data, 0, this.size);
+            this.palette = null;
+            this.indices = null;
+            this.nonZero = countNonZero(this.data);
+            return;
+          }
+          if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, paletteSize * 4);
+          }
+          palette[paletteSize] = value;
+          keys[slot] = value;
+          slots[slot] = ++paletteSize;
+        }
+        last = value;
+        lastIndex = slots[slot] - 1;
+      }
+      if (value != 0) {
+        nonZero++;
+      }
+      values[index] = ((byte)lastIndex);
+    }
+    this.data = null;
+    this.palette = palette;
+    this.paletteSize = paletteSize;
+    this.nonZero = nonZero;
+    if (paletteSize == 1)
+    {
+      this.indices = null;
+      return;
+    }
+    this.bitsShift = bitsShiftFor(paletteSize);
+    this.indices = pack(values, this.bitsShift);
+  }
+  
+  public void copyTo(short[] array, int offset)
+  {
+    if (this.data != null)
+    {
+      System.arraycopy(this.data, 0, array, offset, this.size);
+    }
+    else if (this.indices == null)
+    {
+      Arrays.fill(array, offset, offset + this.size, this.palette[0]);
+    }
+    else
+    {
+      for (int index = 0; index < this.size; index++) {
+        array[(offset + index)] = this.palette[getIndex(index)];
+      }
+    }
+  }
+  
   public int get(int x, int y, int z)
   {
-    return this.data[(y << 8 | z << 4 | x)] & 0xFFFF;
+    return get(y << 8 | z << 4 | x) & 0xFFFF;
   }
   
   public void set(int x, int y, int z, int val)
   {
-    this.data[(y << 8 | z << 4 | x)] = ((short)val);
+    set(y << 8 | z << 4 | x, (short)val);
   }
   
   public int getBlock(int x, int y, int z)
@@ -58,7 +189,142 @@ public class ShortArray3d
   
   public void fill(int val)
   {
-    Arrays.fill(this.data, (short)val);
+    if (this.exposed)
+    {
+      Arrays.fill(this.data, (short)val);
+      return;
+    }
+    this.data = null;
+    this.palette = new short[1];
+    this.palette[0] = ((short)val);
+    this.paletteSize = 1;
+    this.indices = null;
+    this.nonZero = ((short)val != 0 ? this.size : 0);
+  }
+  
+  private short get(int key)
+  {
+    if (this.data != null) {
+      return this.data[key];
+    }
+    if (this.indices == null) {
+      return this.palette[0];
+    }
+    return this.palette[getIndex(key)];
+  }
+  
+  private void set(int key, short value)
+  {
+    short old = get(key);
+    if (old == value) {
+      return;
+    }
+    if (!this.exposed) {
+      this.nonZero += (value != 0 ? 1 : 0) - (old != 0 ? 1 : 0);
+    }
+    if (this.data != null)
+    {
+      this.data[key] = value;
+      return;
+    }
+    int index = 0;
+    while ((index < this.paletteSize) && (this.palette[index] != value)) {
+      index++;
+    }
+    if (index == this.paletteSize)
+    {
+      if (this.paletteSize == 256)
+      {
+        short[] data = new short[this.size];
+        copyTo(data, 0);
+        data[key] = value;
+        this.data = data;
+        this.palette = null;
+        this.indices = null;
+        return;
+      }
+      if (this.paletteSize == this.palette.length) {
+        this.palette = Arrays.copyOf(this.palette, Math.min(this.paletteSize * 4, 256));
+      }
+      this.palette[(this.paletteSize++)] = value;
+      int bitsShift = bitsShiftFor(this.paletteSize);
+      if ((this.indices == null) || (bitsShift != this.bitsShift)) {
+        resize(bitsShift);
+      }
+    }
+    setIndex(key, index);
+  }
+  
+  private void resize(int bitsShift)
+  {
+    long[] old = this.indices;
+    int oldShift = this.bitsShift;
+    this.bitsShift = bitsShift;
+    this.indices = new long[(this.size << bitsShift) + 63 >> 6];
+    if (old != null)
+    {
+      int oldMask = (1 << (1 << oldShift)) - 1;
+      for (int index = 0; index < this.size; index++)
+      {
+        int bit = index << oldShift;
+        setIndex(index, (int)(old[(bit >> 6)] >>> (bit & 0x3F)) & oldMask);
+      }
+    }
+  }
+  
+  private static long[] pack(byte[] values, int bitsShift)
+  {
+    int perLong = 64 >> bitsShift;
+    long[] indices = new long[(values.length << bitsShift) + 63 >> 6];
+    for (int word = 0; word < indices.length; word++)
+    {
+      long packed = 0L;
+      int start = word * perLong;
+      int end = Math.min(start + perLong, values.length);
+      for (int index = start; index < end; index++) {
+        packed |= (values[index] & 0xFFL) << (index - start << bitsShift);
+      }
+      indices[word] = packed;
+    }
+    return indices;
+  }
+  
+  private int getIndex(int key)
+  {
+    int bit = key << this.bitsShift;
+    return (int)(this.indices[(bit >> 6)] >>> (bit & 0x3F)) & (1 << (1 << this.bitsShift)) - 1;
+  }
+  
+  private void setIndex(int key, int index)
+  {
+    int bit = key << this.bitsShift;
+    long mask = (1L << (1 << this.bitsShift)) - 1L;
+    this.indices[(bit >> 6)] = (this.indices[(bit >> 6)] & (mask << (bit & 0x3F) ^ 0xFFFFFFFFFFFFFFFFL) | (index & mask) << (bit & 0x3F));
+  }
+  
+  private static int bitsShiftFor(int paletteSize)
+  {
+    if (paletteSize <= 2) {
+      return 0;
+    }
+    if (paletteSize <= 4) {
+      return 1;
+    }
+    if (paletteSize <= 16) {
+      return 2;
+    }
+    return 3;
+  }
+  
+  private static int countNonZero(short[] data)
+  {
+    int count = 0;
+    for (short value : data) {
+      if (value != 0) {
+        count++;
+      }
+    }
+    return count;
   }
   
   public boolean equals(Object o)
@@ -70,14 +336,29 @@ public class ShortArray3d
       return false;
     }
     ShortArray3d that = (ShortArray3d)o;
-    if (!Arrays.equals(this.data, that.data)) {
+    if ((this.data != null) && (that.data != null)) {
+      return Arrays.equals(this.data, that.data);
+    }
+    if (this.size != that.size) {
       return false;
     }
+    for (int index = 0; index < this.size; index++) {
+      if (get(index) != that.get(index)) {
+        return false;
+      }
+    }
     return true;
   }
   
   public int hashCode()
   {
-    return Arrays.hashCode(this.data);
+    if (this.data != null) {
+      return Arrays.hashCode(this.data);
+    }
+    int result = 1;
+    for (int index = 0; index < this.size; index++) {
+      result = 31 * result + get(index);
+    }
+    return result;
   }
 }
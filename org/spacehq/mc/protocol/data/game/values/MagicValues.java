@@ -67,6 +67,7 @@ import org.spacehq.mc.protocol.data.game.values.world.notify.DemoMessageValue;
 public class MagicValues
 {
   private static final Map<Enum<?>, Object> values = new HashMap();
+  private static final Map<Class<?>, KeyTable> tables = new HashMap();
   
   static
   {
@@ -886,10 +887,34 @@ public class MagicValues
   private static void register(Enum<?> key, Object value)
   {
     values.put(key, value);
+    Class<?> type = key.getDeclaringClass();
+    KeyTable table = (KeyTable)tables.get(type);
+    if (table == null)
+    {
+      table = new KeyTable(type);
+      tables.put(type, table);
+    }
+    table.add(key, value);
   }
   
   public static <T extends Enum<?>> T key(Class<T> keyType, Object value)
   {
+    KeyTable table = (KeyTable)tables.get(keyType);
+    if (table != null)
+    {
+      if (((value instanceof Integer)) || ((value instanceof Byte)) || ((value instanceof Short))) {
+        return table.key(((Number)value).intValue());
+      }
+      if ((value instanceof Number))
+      {
+        double num = ((Number)value).doubleValue();
+        if ((num < -2147483648.0D) || (num > 2147483647.0D) || (num != (int)num)) {
+          return null;
+        }
+        return table.key((int)num);
+      }
+      return (T)table.objects.get(value);
+    }
     for (Enum<?> key : values.keySet())
     {
       Object val = values.get(key);
@@ -911,6 +936,28 @@ public class MagicValues
     return null;
   }
   
+  public static <T extends Enum<?>> T keyInt(Class<T> keyType, int value)
+  {
+    KeyTable table = (KeyTable)tables.get(keyType);
+    if (table == null) {
+      return key(keyType, Integer.valueOf(value));
+    }
+    return table.key(value);
+  }
+  
+  public static int valueInt(Enum<?> key)
+  {
+    KeyTable table = (KeyTable)tables.get(key.getDeclaringClass());
+    if (table != null)
+    {
+      int ordinal = key.ordinal();
+      if ((ordinal < table.mapped.length) && (table.mapped[ordinal])) {
+        return table.values[ordinal];
+      }
+    }
+    throw new IllegalArgumentException("No integer value registered for " + key.getDeclaringClass().getSimpleName() + "." + key.name() + ".");
+  }
+  
   public static <T> T value(Class<T> valueType, Enum<?> key)
   {
     Object val = values.get(key);
@@ -943,4 +990,67 @@ public class MagicValues
     }
     return null;
   }
+  
+  private static class KeyTable
+  {
+    private int offset = 0;
+    private Enum<?>[] ints = new Enum[0];
+    private Map<Object, Enum<?>> objects = new HashMap();
+    private int[] values;
+    private boolean[] mapped;
+    
+    public KeyTable(Class<?> type)
+    {
+      int count = type.getEnumConstants().length;
+      this.values = new int[count];
+      this.mapped = new boolean[count];
+    }
+    
+    public void add(Enum<?> key, Object value)
+    {
+      if ((!(value instanceof Integer)) && (!(value instanceof Byte)) && (!(value instanceof Short)))
+      {
+        if (!this.objects.containsKey(value)) {
+          this.objects.put(value, key);
+        }
+        return;
+      }
+      int num = ((Number)value).intValue();
+      if (!this.mapped[key.ordinal()])
+      {
+        this.values[key.ordinal()] = num;
+        this.mapped[key.ordinal()] = true;
+      }
+      if (this.ints.length == 0)
+      {
+        this.offset = num;
+        this.ints = new Enum[1];
+      }
+      else if (num < this.offset)
+      {
+        Enum<?>[] ints = new Enum[this.ints.length + this.offset - num];
+        System.arraycopy(this.ints, 0, ints, this.offset - num, this.ints.length);
+        this.ints = ints;
+        this.offset = num;
+      }
+      else if (num - this.offset >= this.ints.length)
+      {
+        Enum<?>[] ints = new Enum[num - this.offset + 1];
+        System.arraycopy(this.ints, 0, ints, 0, this.ints.length);
+        this.ints = ints;
+      }
+      if (this.ints[(num - this.offset)] == null) {
+        this.ints[(num - this.offset)] = key;
+      }
+    }
+    
+    public <T extends Enum<?>> T key(int value)
+    {
+      int index = value - this.offset;
+      if ((index < 0) || (index >= this.ints.length)) {
+        return null;
+      }
+      return (T)this.ints[index];
+    }
+  }
 }
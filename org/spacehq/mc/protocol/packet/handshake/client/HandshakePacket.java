@@ -51,7 +51,7 @@ public class HandshakePacket
     this.protocolVersion = in.readVarInt();
     this.hostname = in.readString();
     this.port = in.readUnsignedShort();
-    this.intent = ((HandshakeIntent)MagicValues.key(HandshakeIntent.class, Integer.valueOf(in.readVarInt())));
+    this.intent = ((HandshakeIntent)MagicValues.keyInt(HandshakeIntent.class, in.readVarInt()));
   }
   
   public void write(NetOutput out)
@@ -60,7 +60,7 @@ public class HandshakePacket
     out.writeVarInt(this.protocolVersion);
     out.writeString(this.hostname);
     out.writeShort(this.port);
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.intent)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.intent));
   }
   
   public boolean isPriority()
@@ -27,13 +27,13 @@ public class ClientRequestPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.request = ((ClientRequest)MagicValues.key(ClientRequest.class, Integer.valueOf(in.readUnsignedByte())));
+    this.request = ((ClientRequest)MagicValues.keyInt(ClientRequest.class, in.readUnsignedByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.request)).intValue());
+    out.writeByte(MagicValues.valueInt(this.request));
   }
   
   public boolean isPriority()
@@ -35,14 +35,14 @@ public class ClientResourcePackStatusPacket
     throws IOException
   {
     this.hash = in.readString();
-    this.status = ((ResourcePackStatus)MagicValues.key(ResourcePackStatus.class, Integer.valueOf(in.readVarInt())));
+    this.status = ((ResourcePackStatus)MagicValues.keyInt(ResourcePackStatus.class, in.readVarInt()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
     out.writeString(this.hash);
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.status)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.status));
   }
   
   public boolean isPriority()
@@ -61,7 +61,7 @@ public class ClientSettingsPacket
   {
     this.locale = in.readString();
     this.renderDistance = in.readByte();
-    this.chatVisibility = ((ChatVisibility)MagicValues.key(ChatVisibility.class, Byte.valueOf(in.readByte())));
+    this.chatVisibility = ((ChatVisibility)MagicValues.keyInt(ChatVisibility.class, in.readByte()));
     this.chatColors = in.readBoolean();
     this.visibleParts = new ArrayList();
     int flags = in.readUnsignedByte();
@@ -79,7 +79,7 @@ public class ClientSettingsPacket
   {
     out.writeString(this.locale);
     out.writeByte(this.renderDistance);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.chatVisibility)).intValue());
+    out.writeByte(MagicValues.valueInt(this.chatVisibility));
     out.writeBoolean(this.chatColors);
     int flags = 0;
     for (SkinPart part : this.visibleParts) {
@@ -44,17 +44,17 @@ public class ClientPlayerActionPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.action = ((PlayerAction)MagicValues.key(PlayerAction.class, Integer.valueOf(in.readUnsignedByte())));
+    this.action = ((PlayerAction)MagicValues.keyInt(PlayerAction.class, in.readUnsignedByte()));
     this.position = NetUtil.readPosition(in);
-    this.face = ((Face)MagicValues.key(Face.class, Integer.valueOf(in.readUnsignedByte())));
+    this.face = ((Face)MagicValues.keyInt(Face.class, in.readUnsignedByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeByte(MagicValues.valueInt(this.action));
     NetUtil.writePosition(out, this.position);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.face)).intValue());
+    out.writeByte(MagicValues.valueInt(this.face));
   }
   
   public boolean isPriority()
@@ -46,7 +46,7 @@ public class ClientPlayerInteractEntityPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.action = ((InteractAction)MagicValues.key(InteractAction.class, Integer.valueOf(in.readVarInt())));
+    this.action = ((InteractAction)MagicValues.keyInt(InteractAction.class, in.readVarInt()));
     if (this.action == InteractAction.INTERACT_AT)
     {
       this.targetX = in.readFloat();
@@ -59,7 +59,7 @@ public class ClientPlayerInteractEntityPacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.action));
     if (this.action == InteractAction.INTERACT_AT)
     {
       out.writeFloat(this.targetX);
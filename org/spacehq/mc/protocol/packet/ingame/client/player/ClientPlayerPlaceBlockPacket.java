@@ -66,7 +66,7 @@ public class ClientPlayerPlaceBlockPacket
     throws IOException
   {
     this.position = NetUtil.readPosition(in);
-    this.face = ((Face)MagicValues.key(Face.class, Integer.valueOf(in.readUnsignedByte())));
+    this.face = ((Face)MagicValues.keyInt(Face.class, in.readUnsignedByte()));
     this.held = NetUtil.readItem(in);
     this.cursorX = (in.readByte() / 16.0F);
     this.cursorY = (in.readByte() / 16.0F);
@@ -77,7 +77,7 @@ public class ClientPlayerPlaceBlockPacket
     throws IOException
   {
     NetUtil.writePosition(out, this.position);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.face)).intValue());
+    out.writeByte(MagicValues.valueInt(this.face));
     NetUtil.writeItem(out, this.held);
     out.writeByte((int)(this.cursorX * 16.0F));
     out.writeByte((int)(this.cursorY * 16.0F));
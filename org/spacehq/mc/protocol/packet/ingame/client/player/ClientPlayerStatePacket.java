@@ -47,7 +47,7 @@ public class ClientPlayerStatePacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.state = ((PlayerState)MagicValues.key(PlayerState.class, Integer.valueOf(in.readUnsignedByte())));
+    this.state = ((PlayerState)MagicValues.keyInt(PlayerState.class, in.readUnsignedByte()));
     this.jumpBoost = in.readVarInt();
   }
   
@@ -55,7 +55,7 @@ public class ClientPlayerStatePacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.state)).intValue());
+    out.writeByte(MagicValues.valueInt(this.state));
     out.writeVarInt(this.jumpBoost);
   }
   
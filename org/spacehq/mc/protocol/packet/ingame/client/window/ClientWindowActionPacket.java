@@ -76,22 +76,22 @@ public class ClientWindowActionPacket
     this.slot = in.readShort();
     byte param = in.readByte();
     this.actionId = in.readShort();
-    this.action = ((WindowAction)MagicValues.key(WindowAction.class, Byte.valueOf(in.readByte())));
+    this.action = ((WindowAction)MagicValues.keyInt(WindowAction.class, in.readByte()));
     this.clicked = NetUtil.readItem(in);
     if (this.action == WindowAction.CLICK_ITEM) {
-      this.param = ((WindowActionParam)MagicValues.key(ClickItemParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(ClickItemParam.class, param));
     } else if (this.action == WindowAction.SHIFT_CLICK_ITEM) {
-      this.param = ((WindowActionParam)MagicValues.key(ShiftClickItemParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(ShiftClickItemParam.class, param));
     } else if (this.action == WindowAction.MOVE_TO_HOTBAR_SLOT) {
-      this.param = ((WindowActionParam)MagicValues.key(MoveToHotbarParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(MoveToHotbarParam.class, param));
     } else if (this.action == WindowAction.CREATIVE_GRAB_MAX_STACK) {
-      this.param = ((WindowActionParam)MagicValues.key(CreativeGrabParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(CreativeGrabParam.class, param));
     } else if (this.action == WindowAction.DROP_ITEM) {
-      this.param = ((WindowActionParam)MagicValues.key(DropItemParam.class, Integer.valueOf(param + (this.slot != 64537 ? 2 : 0))));
+      this.param = ((WindowActionParam)MagicValues.keyInt(DropItemParam.class, param + (this.slot != 64537 ? 2 : 0)));
     } else if (this.action == WindowAction.SPREAD_ITEM) {
-      this.param = ((WindowActionParam)MagicValues.key(SpreadItemParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(SpreadItemParam.class, param));
     } else if (this.action == WindowAction.FILL_STACK) {
-      this.param = ((WindowActionParam)MagicValues.key(FillStackParam.class, Byte.valueOf(param)));
+      this.param = ((WindowActionParam)MagicValues.keyInt(FillStackParam.class, param));
     }
   }
   
@@ -102,23 +102,23 @@ public class ClientWindowActionPacket
     out.writeShort(this.slot);
     int param = 0;
     if (this.action == WindowAction.CLICK_ITEM) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     } else if (this.action == WindowAction.SHIFT_CLICK_ITEM) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     } else if (this.action == WindowAction.MOVE_TO_HOTBAR_SLOT) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     } else if (this.action == WindowAction.CREATIVE_GRAB_MAX_STACK) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     } else if (this.action == WindowAction.DROP_ITEM) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue() + (this.slot != 64537 ? 2 : 0);
+      param = MagicValues.valueInt((Enum)this.param) + (this.slot != 64537 ? 2 : 0);
     } else if (this.action == WindowAction.SPREAD_ITEM) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     } else if (this.action == WindowAction.FILL_STACK) {
-      param = ((Integer)MagicValues.value(Integer.class, (Enum)this.param)).intValue();
+      param = MagicValues.valueInt((Enum)this.param);
     }
     out.writeByte(param);
     out.writeShort(this.actionId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeByte(MagicValues.valueInt(this.action));
     NetUtil.writeItem(out, this.clicked);
   }
   
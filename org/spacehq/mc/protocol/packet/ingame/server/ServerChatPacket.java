@@ -51,14 +51,14 @@ public class ServerChatPacket
     throws IOException
   {
     this.message = Message.fromString(in.readString());
-    this.type = ((MessageType)MagicValues.key(MessageType.class, Byte.valueOf(in.readByte())));
+    this.type = ((MessageType)MagicValues.keyInt(MessageType.class, in.readByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
     out.writeString(this.message.toJsonString());
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.type)).intValue());
+    out.writeByte(MagicValues.valueInt(this.type));
   }
   
   public boolean isPriority()
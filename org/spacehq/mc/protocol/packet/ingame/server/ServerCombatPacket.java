@@ -64,7 +64,7 @@ public class ServerCombatPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.state = ((CombatState)MagicValues.key(CombatState.class, Integer.valueOf(in.readVarInt())));
+    this.state = ((CombatState)MagicValues.keyInt(CombatState.class, in.readVarInt()));
     if (this.state == CombatState.END_COMBAT)
     {
       this.duration = in.readVarInt();
@@ -81,7 +81,7 @@ public class ServerCombatPacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.state)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.state));
     if (this.state == CombatState.END_COMBAT)
     {
       out.writeVarInt(this.duration);
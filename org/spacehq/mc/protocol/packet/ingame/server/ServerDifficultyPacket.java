@@ -27,13 +27,13 @@ public class ServerDifficultyPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.difficulty = ((Difficulty)MagicValues.key(Difficulty.class, Integer.valueOf(in.readUnsignedByte())));
+    this.difficulty = ((Difficulty)MagicValues.keyInt(Difficulty.class, in.readUnsignedByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.difficulty)).intValue());
+    out.writeByte(MagicValues.valueInt(this.difficulty));
   }
   
   public boolean isPriority()
@@ -82,9 +82,9 @@ public class ServerJoinGamePacket
     int gamemode = in.readUnsignedByte();
     this.hardcore = ((gamemode & 0x8) == 8);
     gamemode &= 0xFFFFFFF7;
-    this.gamemode = ((GameMode)MagicValues.key(GameMode.class, Integer.valueOf(gamemode)));
+    this.gamemode = ((GameMode)MagicValues.keyInt(GameMode.class, gamemode));
     this.dimension = in.readByte();
-    this.difficulty = ((Difficulty)MagicValues.key(Difficulty.class, Integer.valueOf(in.readUnsignedByte())));
+    this.difficulty = ((Difficulty)MagicValues.keyInt(Difficulty.class, in.readUnsignedByte()));
     this.maxPlayers = in.readUnsignedByte();
     this.worldType = ((WorldType)MagicValues.key(WorldType.class, in.readString().toLowerCase()));
     this.reducedDebugInfo = in.readBoolean();
@@ -94,13 +94,13 @@ public class ServerJoinGamePacket
     throws IOException
   {
     out.writeInt(this.entityId);
-    int gamemode = ((Integer)MagicValues.value(Integer.class, this.gamemode)).intValue();
+    int gamemode = MagicValues.valueInt(this.gamemode);
     if (this.hardcore) {
       gamemode |= 0x8;
     }
     out.writeByte(gamemode);
     out.writeByte(this.dimension);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.difficulty)).intValue());
+    out.writeByte(MagicValues.valueInt(this.difficulty));
     out.writeByte(this.maxPlayers);
     out.writeString((String)MagicValues.value(String.class, this.worldType));
     out.writeBoolean(this.reducedDebugInfo);
@@ -1,6 +1,7 @@
 package org.spacehq.mc.protocol.packet.ingame.server;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.UUID;
 import org.spacehq.mc.auth.data.GameProfile;
@@ -12,6 +13,7 @@ import org.spacehq.mc.protocol.data.game.values.entity.player.GameMode;
 import org.spacehq.mc.protocol.data.message.Message;
 import org.spacehq.packetlib.io.NetInput;
 import org.spacehq.packetlib.io.NetOutput;
+import org.spacehq.packetlib.io.buffer.ByteBufferNetInput;
 import org.spacehq.packetlib.packet.Packet;
 
 public class ServerPlayerListEntryPacket
@@ -19,6 +21,7 @@ public class ServerPlayerListEntryPacket
 {
   private PlayerListEntryAction action;
   private PlayerListEntry[] entries;
+  private volatile byte[] data;
   
   private ServerPlayerListEntryPacket() {}
   
@@ -35,13 +38,42 @@ public class ServerPlayerListEntryPacket
   
   public PlayerListEntry[] getEntries()
   {
+    parse();
     return this.entries;
   }
   
+  public boolean isParsed()
+  {
+    return this.data == null;
+  }
+  
+  private synchronized void parse()
+  {
+    if (this.data != null)
+    {
+      try
+      {
+        readEntries(new ByteBufferNetInput(ByteBuffer.wrap(this.data)));
+      }
+      catch (IOException e)
+      {
+        throw new IllegalStateException("Failed to read player list entries.", e);
+      }
+      this.data = null;
+    }
+  }
+  
   public void read(NetInput in)
     throws IOException
   {
-    this.action = ((PlayerListEntryAction)MagicValues.key(PlayerListEntryAction.class, Integer.valueOf(in.readVarInt())));
+    this.action = ((PlayerListEntryAction)MagicValues.keyInt(PlayerListEntryAction.class, in.readVarInt()));
+    this.data = in.readBytes(in.available());
+    this.entries = null;
+  }
+  
+  private void readEntries(NetInput in)
+    throws IOException
+  {
     this.entries = new PlayerListEntry[in.readVarInt()];
     for (int count = 0; count < this.entries.length; count++)
     {
@@ -68,7 +100,7 @@ public class ServerPlayerListEntryPacket
           }
           profile.getProperties().add(new GameProfile.Property(propertyName, value, signature));
         }
-        GameMode gameMode = (GameMode)MagicValues.key(GameMode.class, Integer.valueOf(in.readVarInt()));
+        GameMode gameMode = (GameMode)MagicValues.keyInt(GameMode.class, in.readVarInt());
         int ping = in.readVarInt();
         Message displayName = null;
         if (in.readBoolean()) {
@@ -77,7 +109,7 @@ public class ServerPlayerListEntryPacket
         entry = new PlayerListEntry(profile, gameMode, ping, displayName);
         break;
       case UPDATE_GAMEMODE: 
-        GameMode mode = (GameMode)MagicValues.key(GameMode.class, Integer.valueOf(in.readVarInt()));
+        GameMode mode = (GameMode)MagicValues.keyInt(GameMode.class, in.readVarInt());
         entry = new PlayerListEntry(profile, mode);
         break;
       case UPDATE_LATENCY: 
@@ -100,7 +132,13 @@ public class ServerPlayerListEntryPacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    byte[] data = this.data;
+    out.writeVarInt(MagicValues.valueInt(this.action));
+    if (data != null)
+    {
+      out.writeBytes(data);
+      return;
+    }
     out.writeVarInt(this.entries.length);
     for (PlayerListEntry entry : this.entries)
     {
@@ -119,7 +157,7 @@ public class ServerPlayerListEntryPacket
             out.writeString(property.getSignature());
           }
         }
-        out.writeVarInt(((Integer)MagicValues.value(Integer.class, entry.getGameMode())).intValue());
+        out.writeVarInt(MagicValues.valueInt(entry.getGameMode()));
         out.writeVarInt(entry.getPing());
         out.writeBoolean(entry.getDisplayName() != null);
         if (entry.getDisplayName() != null) {
@@ -127,7 +165,7 @@ public class ServerPlayerListEntryPacket
         }
         break;
       case UPDATE_GAMEMODE: 
-        out.writeVarInt(((Integer)MagicValues.value(Integer.class, entry.getGameMode())).intValue());
+        out.writeVarInt(MagicValues.valueInt(entry.getGameMode()));
         break;
       case UPDATE_LATENCY: 
         out.writeVarInt(entry.getPing());
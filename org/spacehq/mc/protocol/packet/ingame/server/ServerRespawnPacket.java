@@ -51,8 +51,8 @@ public class ServerRespawnPacket
     throws IOException
   {
     this.dimension = in.readInt();
-    this.difficulty = ((Difficulty)MagicValues.key(Difficulty.class, Integer.valueOf(in.readUnsignedByte())));
-    this.gamemode = ((GameMode)MagicValues.key(GameMode.class, Integer.valueOf(in.readUnsignedByte())));
+    this.difficulty = ((Difficulty)MagicValues.keyInt(Difficulty.class, in.readUnsignedByte()));
+    this.gamemode = ((GameMode)MagicValues.keyInt(GameMode.class, in.readUnsignedByte()));
     this.worldType = ((WorldType)MagicValues.key(WorldType.class, in.readString().toLowerCase()));
   }
   
@@ -60,8 +60,8 @@ public class ServerRespawnPacket
     throws IOException
   {
     out.writeInt(this.dimension);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.difficulty)).intValue());
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.gamemode)).intValue());
+    out.writeByte(MagicValues.valueInt(this.difficulty));
+    out.writeByte(MagicValues.valueInt(this.gamemode));
     out.writeString((String)MagicValues.value(String.class, this.worldType));
   }
   
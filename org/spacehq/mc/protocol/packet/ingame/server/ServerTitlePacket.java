@@ -89,7 +89,7 @@ public class ServerTitlePacket
   public void read(NetInput in)
     throws IOException
   {
-    this.action = ((TitleAction)MagicValues.key(TitleAction.class, Integer.valueOf(in.readVarInt())));
+    this.action = ((TitleAction)MagicValues.keyInt(TitleAction.class, in.readVarInt()));
     switch (this.action)
     {
     case TITLE: 
@@ -111,7 +111,7 @@ public class ServerTitlePacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.action));
     switch (this.action)
     {
     case TITLE: 
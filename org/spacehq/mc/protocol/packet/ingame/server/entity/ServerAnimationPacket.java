@@ -35,14 +35,14 @@ public class ServerAnimationPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.animation = ((Animation)MagicValues.key(Animation.class, Byte.valueOf(in.readByte())));
+    this.animation = ((Animation)MagicValues.keyInt(Animation.class, in.readByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.animation)).intValue());
+    out.writeByte(MagicValues.valueInt(this.animation));
   }
   
   public boolean isPriority()
@@ -56,7 +56,7 @@ public class ServerEntityEffectPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.effect = ((Effect)MagicValues.key(Effect.class, Byte.valueOf(in.readByte())));
+    this.effect = ((Effect)MagicValues.keyInt(Effect.class, in.readByte()));
     this.amplifier = in.readByte();
     this.duration = in.readVarInt();
     this.hideParticles = in.readBoolean();
@@ -66,7 +66,7 @@ public class ServerEntityEffectPacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.effect)).intValue());
+    out.writeByte(MagicValues.valueInt(this.effect));
     out.writeByte(this.amplifier);
     out.writeVarInt(this.duration);
     out.writeBoolean(this.hideParticles);
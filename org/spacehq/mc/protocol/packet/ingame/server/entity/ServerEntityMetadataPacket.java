@@ -1,10 +1,12 @@
 package org.spacehq.mc.protocol.packet.ingame.server.entity;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import org.spacehq.mc.protocol.data.game.EntityMetadata;
 import org.spacehq.mc.protocol.util.NetUtil;
 import org.spacehq.packetlib.io.NetInput;
 import org.spacehq.packetlib.io.NetOutput;
+import org.spacehq.packetlib.io.buffer.ByteBufferNetInput;
 import org.spacehq.packetlib.packet.Packet;
 
 public class ServerEntityMetadataPacket
@@ -12,6 +14,7 @@ public class ServerEntityMetadataPacket
 {
   private int entityId;
   private EntityMetadata[] metadata;
+  private volatile byte[] data;
   
   private ServerEntityMetadataPacket() {}
   
@@ -28,21 +31,49 @@ public class ServerEntityMetadataPacket
   
   public EntityMetadata[] getMetadata()
   {
+    parse();
     return this.metadata;
   }
   
+  public boolean isParsed()
+  {
+    return this.data == null;
+  }
+  
+  private synchronized void parse()
+  {
+    if (this.data != null)
+    {
+      try
+      {
+        this.metadata = NetUtil.readEntityMetadata(new ByteBufferNetInput(ByteBuffer.wrap(this.data)));
+      }
+      catch (IOException e)
+      {
+        throw new IllegalStateException("Failed to read entity metadata.", e);
+      }
+      this.data = null;
+    }
+  }
+  
   public void read(NetInput in)
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.metadata = NetUtil.readEntityMetadata(in);
+    this.data = in.readBytes(in.available());
+    this.metadata = null;
   }
   
   public void write(NetOutput out)
     throws IOException
   {
+    byte[] data = this.data;
     out.writeVarInt(this.entityId);
-    NetUtil.writeEntityMetadata(out, this.metadata);
+    if (data != null) {
+      out.writeBytes(data);
+    } else {
+      NetUtil.writeEntityMetadata(out, this.metadata);
+    }
   }
   
   public boolean isPriority()
@@ -49,7 +49,7 @@ public class ServerEntityPropertiesPacket
       List<AttributeModifier> modifiers = new ArrayList();
       int len = in.readVarInt();
       for (int ind = 0; ind < len; ind++) {
-        modifiers.add(new AttributeModifier(in.readUUID(), in.readDouble(), (ModifierOperation)MagicValues.key(ModifierOperation.class, Byte.valueOf(in.readByte()))));
+        modifiers.add(new AttributeModifier(in.readUUID(), in.readDouble(), (ModifierOperation)MagicValues.keyInt(ModifierOperation.class, in.readByte())));
       }
       this.attributes.add(new Attribute((AttributeType)MagicValues.key(AttributeType.class, key), value, modifiers));
     }
@@ -69,7 +69,7 @@ public class ServerEntityPropertiesPacket
       {
         out.writeUUID(modifier.getUUID());
         out.writeDouble(modifier.getAmount());
-        out.writeByte(((Integer)MagicValues.value(Integer.class, modifier.getOperation())).intValue());
+        out.writeByte(MagicValues.valueInt(modifier.getOperation()));
       }
     }
   }
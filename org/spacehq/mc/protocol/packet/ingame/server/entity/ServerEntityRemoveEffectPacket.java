@@ -35,14 +35,14 @@ public class ServerEntityRemoveEffectPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.effect = ((Effect)MagicValues.key(Effect.class, Byte.valueOf(in.readByte())));
+    this.effect = ((Effect)MagicValues.keyInt(Effect.class, in.readByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.effect)).intValue());
+    out.writeByte(MagicValues.valueInt(this.effect));
   }
   
   public boolean isPriority()
@@ -35,14 +35,14 @@ public class ServerEntityStatusPacket
     throws IOException
   {
     this.entityId = in.readInt();
-    this.status = ((EntityStatus)MagicValues.key(EntityStatus.class, Byte.valueOf(in.readByte())));
+    this.status = ((EntityStatus)MagicValues.keyInt(EntityStatus.class, in.readByte()));
   }
   
   public void write(NetOutput out)
     throws IOException
   {
     out.writeInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.status)).intValue());
+    out.writeByte(MagicValues.valueInt(this.status));
   }
   
   public boolean isPriority()
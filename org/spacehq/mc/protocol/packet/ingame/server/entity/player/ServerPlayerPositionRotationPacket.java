@@ -79,7 +79,7 @@ public class ServerPlayerPositionRotationPacket
     int flags = in.readUnsignedByte();
     for (PositionElement element : PositionElement.values())
     {
-      int bit = 1 << ((Integer)MagicValues.value(Integer.class, element)).intValue();
+      int bit = 1 << MagicValues.valueInt(element);
       if ((flags & bit) == bit) {
         this.relative.add(element);
       }
@@ -96,7 +96,7 @@ public class ServerPlayerPositionRotationPacket
     out.writeFloat(this.pitch);
     int flags = 0;
     for (PositionElement element : this.relative) {
-      flags |= 1 << ((Integer)MagicValues.value(Integer.class, element)).intValue();
+      flags |= 1 << MagicValues.valueInt(element);
     }
     out.writeByte(flags);
   }
@@ -56,7 +56,7 @@ public class ServerSpawnGlobalEntityPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.type = ((GlobalEntityType)MagicValues.key(GlobalEntityType.class, Byte.valueOf(in.readByte())));
+    this.type = ((GlobalEntityType)MagicValues.keyInt(GlobalEntityType.class, in.readByte()));
     this.x = in.readInt();
     this.y = in.readInt();
     this.z = in.readInt();
@@ -66,7 +66,7 @@ public class ServerSpawnGlobalEntityPacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.type)).intValue());
+    out.writeByte(MagicValues.valueInt(this.type));
     out.writeInt(this.x);
     out.writeInt(this.y);
     out.writeInt(this.z);
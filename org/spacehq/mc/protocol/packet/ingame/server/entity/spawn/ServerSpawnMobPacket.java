@@ -107,7 +107,7 @@ public class ServerSpawnMobPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.type = ((MobType)MagicValues.key(MobType.class, Byte.valueOf(in.readByte())));
+    this.type = ((MobType)MagicValues.keyInt(MobType.class, in.readByte()));
     this.x = (in.readInt() / 32.0D);
     this.y = (in.readInt() / 32.0D);
     this.z = (in.readInt() / 32.0D);
@@ -124,7 +124,7 @@ public class ServerSpawnMobPacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.type)).intValue());
+    out.writeByte(MagicValues.valueInt(this.type));
     out.writeInt((int)(this.x * 32.0D));
     out.writeInt((int)(this.y * 32.0D));
     out.writeInt((int)(this.z * 32.0D));
@@ -119,7 +119,7 @@ public class ServerSpawnObjectPacket
     throws IOException
   {
     this.entityId = in.readVarInt();
-    this.type = ((ObjectType)MagicValues.key(ObjectType.class, Byte.valueOf(in.readByte())));
+    this.type = ((ObjectType)MagicValues.keyInt(ObjectType.class, in.readByte()));
     this.x = (in.readInt() / 32.0D);
     this.y = (in.readInt() / 32.0D);
     this.z = (in.readInt() / 32.0D);
@@ -129,9 +129,9 @@ public class ServerSpawnObjectPacket
     if (data > 0)
     {
       if (this.type == ObjectType.MINECART) {
-        this.data = ((ObjectData)MagicValues.key(MinecartType.class, Integer.valueOf(data)));
+        this.data = ((ObjectData)MagicValues.keyInt(MinecartType.class, data));
       } else if (this.type == ObjectType.ITEM_FRAME) {
-        this.data = ((ObjectData)MagicValues.key(HangingDirection.class, Integer.valueOf(data)));
+        this.data = ((ObjectData)MagicValues.keyInt(HangingDirection.class, data));
       } else if (this.type == ObjectType.FALLING_BLOCK) {
         this.data = new FallingBlockData(data & 0xFFFF, data >> 16);
       } else if (this.type == ObjectType.POTION) {
@@ -151,7 +151,7 @@ public class ServerSpawnObjectPacket
     throws IOException
   {
     out.writeVarInt(this.entityId);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.type)).intValue());
+    out.writeByte(MagicValues.valueInt(this.type));
     out.writeInt((int)(this.x * 32.0D));
     out.writeInt((int)(this.y * 32.0D));
     out.writeInt((int)(this.z * 32.0D));
@@ -160,9 +160,9 @@ public class ServerSpawnObjectPacket
     int data = 0;
     if (this.data != null) {
       if ((this.data instanceof MinecartType)) {
-        data = ((Integer)MagicValues.value(Integer.class, (Enum)this.data)).intValue();
+        data = MagicValues.valueInt((Enum)this.data);
       } else if ((this.data instanceof HangingDirection)) {
-        data = ((Integer)MagicValues.value(Integer.class, (Enum)this.data)).intValue();
+        data = MagicValues.valueInt((Enum)this.data);
       } else if ((this.data instanceof FallingBlockData)) {
         data = ((FallingBlockData)this.data).getId() | ((FallingBlockData)this.data).getMetadata() << 16;
       } else if ((this.data instanceof SplashPotionData)) {
@@ -54,7 +54,7 @@ public class ServerSpawnPaintingPacket
     this.entityId = in.readVarInt();
     this.art = ((Art)MagicValues.key(Art.class, in.readString()));
     this.position = NetUtil.readPosition(in);
-    this.direction = ((HangingDirection)MagicValues.key(HangingDirection.class, Integer.valueOf(in.readUnsignedByte())));
+    this.direction = ((HangingDirection)MagicValues.keyInt(HangingDirection.class, in.readUnsignedByte()));
   }
   
   public void write(NetOutput out)
@@ -63,7 +63,7 @@ public class ServerSpawnPaintingPacket
     out.writeVarInt(this.entityId);
     out.writeString((String)MagicValues.value(String.class, this.art));
     NetUtil.writePosition(out, this.position);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.direction)).intValue());
+    out.writeByte(MagicValues.valueInt(this.direction));
   }
   
   public boolean isPriority()
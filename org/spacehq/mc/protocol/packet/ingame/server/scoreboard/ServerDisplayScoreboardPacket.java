@@ -34,14 +34,14 @@ public class ServerDisplayScoreboardPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.position = ((ScoreboardPosition)MagicValues.key(ScoreboardPosition.class, Byte.valueOf(in.readByte())));
+    this.position = ((ScoreboardPosition)MagicValues.keyInt(ScoreboardPosition.class, in.readByte()));
     this.name = in.readString();
   }
   
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.position)).intValue());
+    out.writeByte(MagicValues.valueInt(this.position));
     out.writeString(this.name);
   }
   
@@ -59,7 +59,7 @@ public class ServerScoreboardObjectivePacket
     throws IOException
   {
     this.name = in.readString();
-    this.action = ((ObjectiveAction)MagicValues.key(ObjectiveAction.class, Byte.valueOf(in.readByte())));
+    this.action = ((ObjectiveAction)MagicValues.keyInt(ObjectiveAction.class, in.readByte()));
     if ((this.action == ObjectiveAction.ADD) || (this.action == ObjectiveAction.UPDATE))
     {
       this.displayName = in.readString();
@@ -71,7 +71,7 @@ public class ServerScoreboardObjectivePacket
     throws IOException
   {
     out.writeString(this.name);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeByte(MagicValues.valueInt(this.action));
     if ((this.action == ObjectiveAction.ADD) || (this.action == ObjectiveAction.UPDATE))
     {
       out.writeString(this.displayName);
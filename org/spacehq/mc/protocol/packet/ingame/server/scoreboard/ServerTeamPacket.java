@@ -122,7 +122,7 @@ public class ServerTeamPacket
     throws IOException
   {
     this.name = in.readString();
-    this.action = ((TeamAction)MagicValues.key(TeamAction.class, Byte.valueOf(in.readByte())));
+    this.action = ((TeamAction)MagicValues.keyInt(TeamAction.class, in.readByte()));
     if ((this.action == TeamAction.CREATE) || (this.action == TeamAction.UPDATE))
     {
       this.displayName = in.readString();
@@ -132,7 +132,7 @@ public class ServerTeamPacket
       this.friendlyFire = ((flags & 0x1) != 0);
       this.seeFriendlyInvisibles = ((flags & 0x2) != 0);
       this.nameTagVisibility = ((NameTagVisibility)MagicValues.key(NameTagVisibility.class, in.readString()));
-      this.color = ((TeamColor)MagicValues.key(TeamColor.class, Byte.valueOf(in.readByte())));
+      this.color = ((TeamColor)MagicValues.keyInt(TeamColor.class, in.readByte()));
     }
     if ((this.action == TeamAction.CREATE) || (this.action == TeamAction.ADD_PLAYER) || (this.action == TeamAction.REMOVE_PLAYER))
     {
@@ -147,7 +147,7 @@ public class ServerTeamPacket
     throws IOException
   {
     out.writeString(this.name);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeByte(MagicValues.valueInt(this.action));
     byte flags;
     if ((this.action == TeamAction.CREATE) || (this.action == TeamAction.UPDATE))
     {
@@ -163,7 +163,7 @@ public class ServerTeamPacket
       }
       out.writeByte(flags);
       out.writeString((String)MagicValues.value(String.class, this.nameTagVisibility));
-      out.writeByte(((Integer)MagicValues.value(Integer.class, this.color)).intValue());
+      out.writeByte(MagicValues.valueInt(this.color));
     }
     if ((this.action == TeamAction.CREATE) || (this.action == TeamAction.ADD_PLAYER) || (this.action == TeamAction.REMOVE_PLAYER))
     {
@@ -56,7 +56,7 @@ public class ServerUpdateScorePacket
     throws IOException
   {
     this.entry = in.readString();
-    this.action = ((ScoreboardAction)MagicValues.key(ScoreboardAction.class, Byte.valueOf(in.readByte())));
+    this.action = ((ScoreboardAction)MagicValues.keyInt(ScoreboardAction.class, in.readByte()));
     this.objective = in.readString();
     if (this.action == ScoreboardAction.ADD_OR_UPDATE) {
       this.value = in.readVarInt();
@@ -67,7 +67,7 @@ public class ServerUpdateScorePacket
     throws IOException
   {
     out.writeString(this.entry);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeByte(MagicValues.valueInt(this.action));
     out.writeString(this.objective);
     if (this.action == ScoreboardAction.ADD_OR_UPDATE) {
       out.writeVarInt(this.value);
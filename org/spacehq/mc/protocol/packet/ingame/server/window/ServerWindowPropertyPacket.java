@@ -26,7 +26,7 @@ public class ServerWindowPropertyPacket
   public <T extends Enum<T>,  extends WindowProperty> ServerWindowPropertyPacket(int windowId, T property, int value)
   {
     this.windowId = windowId;
-    this.property = ((Integer)MagicValues.value(Integer.class, property)).intValue();
+    this.property = MagicValues.valueInt(property);
     this.value = value;
   }
   
@@ -42,7 +42,7 @@ public class ServerWindowPropertyPacket
   
   public <T extends Enum<T>,  extends WindowProperty> T getProperty(Class<T> type)
   {
-    return MagicValues.key(type, Integer.valueOf(this.value));
+    return MagicValues.keyInt(type, this.value);
   }
   
   public int getValue()
@@ -45,7 +45,7 @@ public class ServerBlockBreakAnimPacket
   {
     this.breakerEntityId = in.readVarInt();
     this.position = NetUtil.readPosition(in);
-    this.stage = ((BlockBreakStage)MagicValues.key(BlockBreakStage.class, Integer.valueOf(in.readUnsignedByte())));
+    this.stage = ((BlockBreakStage)MagicValues.keyInt(BlockBreakStage.class, in.readUnsignedByte()));
     if (this.stage == null) {
       this.stage = BlockBreakStage.RESET;
     }
@@ -56,7 +56,7 @@ public class ServerBlockBreakAnimPacket
   {
     out.writeVarInt(this.breakerEntityId);
     NetUtil.writePosition(out, this.position);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.stage)).intValue());
+    out.writeByte(MagicValues.valueInt(this.stage));
   }
   
   public boolean isPriority()
@@ -71,21 +71,21 @@ public class ServerBlockValuePacket
     this.position = NetUtil.readPosition(in);
     int type = in.readUnsignedByte();
     if (this.blockId == 25) {
-      this.type = ((BlockValueType)MagicValues.key(NoteBlockValueType.class, Integer.valueOf(type)));
+      this.type = ((BlockValueType)MagicValues.keyInt(NoteBlockValueType.class, type));
     } else if ((this.blockId == 29) || (this.blockId == 33)) {
-      this.type = ((BlockValueType)MagicValues.key(PistonValueType.class, Integer.valueOf(type)));
+      this.type = ((BlockValueType)MagicValues.keyInt(PistonValueType.class, type));
     } else if (this.blockId == 52) {
-      this.type = ((BlockValueType)MagicValues.key(MobSpawnerValueType.class, Integer.valueOf(type)));
+      this.type = ((BlockValueType)MagicValues.keyInt(MobSpawnerValueType.class, type));
     } else if ((this.blockId == 54) || (this.blockId == 130) || (this.blockId == 146)) {
-      this.type = ((BlockValueType)MagicValues.key(ChestValueType.class, Integer.valueOf(type)));
+      this.type = ((BlockValueType)MagicValues.keyInt(ChestValueType.class, type));
     } else {
-      this.type = ((BlockValueType)MagicValues.key(GenericBlockValueType.class, Integer.valueOf(type)));
+      this.type = ((BlockValueType)MagicValues.keyInt(GenericBlockValueType.class, type));
     }
     int value = in.readUnsignedByte();
     if (this.blockId == 25) {
       this.value = new NoteBlockValue(value);
     } else if ((this.blockId == 29) || (this.blockId == 33)) {
-      this.value = ((BlockValue)MagicValues.key(PistonValue.class, Integer.valueOf(value)));
+      this.value = ((BlockValue)MagicValues.keyInt(PistonValue.class, value));
     } else if (this.blockId == 52) {
       this.value = new MobSpawnerValue();
     } else if ((this.blockId == 54) || (this.blockId == 130) || (this.blockId == 146)) {
@@ -102,22 +102,22 @@ public class ServerBlockValuePacket
     NetUtil.writePosition(out, this.position);
     int type = 0;
     if ((this.type instanceof NoteBlockValueType)) {
-      type = ((Integer)MagicValues.value(Integer.class, (NoteBlockValueType)this.type)).intValue();
+      type = MagicValues.valueInt((NoteBlockValueType)this.type);
     } else if ((this.type instanceof PistonValueType)) {
-      type = ((Integer)MagicValues.value(Integer.class, (PistonValueType)this.type)).intValue();
+      type = MagicValues.valueInt((PistonValueType)this.type);
     } else if ((this.type instanceof MobSpawnerValueType)) {
-      type = ((Integer)MagicValues.value(Integer.class, (MobSpawnerValueType)this.type)).intValue();
+      type = MagicValues.valueInt((MobSpawnerValueType)this.type);
     } else if ((this.type instanceof ChestValueType)) {
-      type = ((Integer)MagicValues.value(Integer.class, (ChestValueType)this.type)).intValue();
+      type = MagicValues.valueInt((ChestValueType)this.type);
     } else if ((this.type instanceof GenericBlockValueType)) {
-      type = ((Integer)MagicValues.value(Integer.class, (GenericBlockValueType)this.type)).intValue();
+      type = MagicValues.valueInt((GenericBlockValueType)this.type);
     }
     out.writeByte(type);
     int val = 0;
     if ((this.value instanceof NoteBlockValue)) {
       val = ((NoteBlockValue)this.value).getPitch();
     } else if ((this.value instanceof PistonValue)) {
-      val = ((Integer)MagicValues.value(Integer.class, (PistonValue)this.value)).intValue();
+      val = MagicValues.valueInt((PistonValue)this.value);
     } else if ((this.value instanceof MobSpawnerValue)) {
       val = 0;
     } else if ((this.value instanceof ChestValue)) {
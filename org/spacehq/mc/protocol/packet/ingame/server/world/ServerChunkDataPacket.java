@@ -16,6 +16,7 @@ public class ServerChunkDataPacket
   private int z;
   private Chunk[] chunks;
   private byte[] biomeData;
+  private volatile NetworkChunkData data;
   
   private ServerChunkDataPacket() {}
   
@@ -66,19 +67,41 @@ public class ServerChunkDataPacket
   
   public Chunk[] getChunks()
   {
+    parse();
     return this.chunks;
   }
   
   public byte[] getBiomeData()
   {
+    parse();
     return this.biomeData;
   }
   
   public boolean isFullChunk()
   {
+    NetworkChunkData data = this.data;
+    if (data != null) {
+      return data.isFullChunk();
+    }
     return this.biomeData != null;
   }
   
+  public boolean isParsed()
+  {
+    return this.data == null;
+  }
+  
+  private synchronized void parse()
+  {
+    if (this.data != null)
+    {
+      ParsedChunkData chunkData = NetUtil.dataToChunks(this.data, true);
+      this.biomeData = chunkData.getBiomes();
+      this.chunks = chunkData.getChunks();
+      this.data = null;
+    }
+  }
+  
   public void read(NetInput in)
     throws IOException
   {
@@ -87,15 +110,18 @@ public class ServerChunkDataPacket
     boolean fullChunk = in.readBoolean();
     int chunkMask = in.readUnsignedShort();
     byte[] data = in.readBytes(in.readVarInt());
-    ParsedChunkData chunkData = NetUtil.dataToChunks(new NetworkChunkData(chunkMask, fullChunk, false, data), true);
-    this.chunks = chunkData.getChunks();
-    this.biomeData = chunkData.getBiomes();
+    this.data = new NetworkChunkData(chunkMask, fullChunk, false, data);
+    this.chunks = null;
+    this.biomeData = null;
   }
   
   public void write(NetOutput out)
     throws IOException
   {
-    NetworkChunkData data = NetUtil.chunksToData(new ParsedChunkData(this.chunks, this.biomeData));
+    NetworkChunkData data = this.data;
+    if (data == null) {
+      data = NetUtil.chunksToData(new ParsedChunkData(this.chunks, this.biomeData));
+    }
     out.writeInt(this.x);
     out.writeInt(this.z);
     out.writeBoolean(data.isFullChunk());
@@ -16,6 +16,7 @@ public class ServerMultiChunkDataPacket
   private int[] z;
   private Chunk[][] chunks;
   private byte[][] biomeData;
+  private NetworkChunkData[] data;
   
   private ServerMultiChunkDataPacket() {}
   
@@ -71,15 +72,33 @@ public class ServerMultiChunkDataPacket
   
   public Chunk[] getChunks(int column)
   {
+    parse(column);
     return this.chunks[column];
   }
   
   public byte[] getBiomeData(int column)
   {
+    parse(column);
     return this.biomeData[column];
   }
   
-  public void read(NetInput in)
+  public synchronized boolean isParsed(int column)
+  {
+    return (this.data == null) || (this.data[column] == null);
+  }
+  
+  private synchronized void parse(int column)
+  {
+    if ((this.data != null) && (this.data[column] != null))
+    {
+      ParsedChunkData chunkData = NetUtil.dataToChunks(this.data[column], false);
+      this.chunks[column] = chunkData.getChunks();
+      this.biomeData[column] = chunkData.getBiomes();
+      this.data[column] = null;
+    }
+  }
+  
+  public synchronized void read(NetInput in)
     throws IOException
   {
     boolean skylight = in.readBoolean();
@@ -88,7 +107,7 @@ public class ServerMultiChunkDataPacket
     this.z = new int[columns];
     this.chunks = new Chunk[columns][];
     this.biomeData = new byte[columns][];
-    NetworkChunkData[] data = new NetworkChunkData[columns];
+    this.data = new NetworkChunkData[columns];
     for (int column = 0; column < columns; column++)
     {
       this.x[column] = in.readInt();
@@ -97,25 +116,25 @@ public class ServerMultiChunkDataPacket
       int chunks = Integer.bitCount(mask);
       int length = chunks * 10240 + (skylight ? chunks * 2048 : 0) + 256;
       byte[] dat = new byte[length];
-      data[column] = new NetworkChunkData(mask, true, skylight, dat);
+      this.data[column] = new NetworkChunkData(mask, true, skylight, dat);
     }
-    for (int column = 0; column < columns; column++)
-    {
-      in.readBytes(data[column].getData());
-      ParsedChunkData chunkData = NetUtil.dataToChunks(data[column], false);
-      this.chunks[column] = chunkData.getChunks();
-      this.biomeData[column] = chunkData.getBiomes();
+    for (int column = 0; column < columns; column++) {
+      in.readBytes(this.data[column].getData());
     }
   }
   
-  public void write(NetOutput out)
+  public synchronized void write(NetOutput out)
     throws IOException
   {
     boolean skylight = false;
     NetworkChunkData[] data = new NetworkChunkData[this.chunks.length];
     for (int column = 0; column < this.chunks.length; column++)
     {
-      data[column] = NetUtil.chunksToData(new ParsedChunkData(this.chunks[column], this.biomeData[column]));
+      if ((this.data != null) && (this.data[column] != null)) {
+        data[column] = this.data[column];
+      } else {
+        data[column] = NetUtil.chunksToData(new ParsedChunkData(this.chunks[column], this.biomeData[column]));
+      }
       if (data[column].hasSkyLight()) {
         skylight = true;
       }
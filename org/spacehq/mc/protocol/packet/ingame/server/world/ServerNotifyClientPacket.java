@@ -39,12 +39,12 @@ public class ServerNotifyClientPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.notification = ((ClientNotification)MagicValues.key(ClientNotification.class, Integer.valueOf(in.readUnsignedByte())));
+    this.notification = ((ClientNotification)MagicValues.keyInt(ClientNotification.class, in.readUnsignedByte()));
     float value = in.readFloat();
     if (this.notification == ClientNotification.CHANGE_GAMEMODE) {
-      this.value = ((ClientNotificationValue)MagicValues.key(GameMode.class, Integer.valueOf((int)value)));
+      this.value = ((ClientNotificationValue)MagicValues.keyInt(GameMode.class, (int)value));
     } else if (this.notification == ClientNotification.DEMO_MESSAGE) {
-      this.value = ((ClientNotificationValue)MagicValues.key(DemoMessageValue.class, Integer.valueOf((int)value)));
+      this.value = ((ClientNotificationValue)MagicValues.keyInt(DemoMessageValue.class, (int)value));
     } else if (this.notification == ClientNotification.RAIN_STRENGTH) {
       this.value = new RainStrengthValue(value);
     } else if (this.notification == ClientNotification.THUNDER_STRENGTH) {
@@ -55,13 +55,13 @@ public class ServerNotifyClientPacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.notification)).intValue());
+    out.writeByte(MagicValues.valueInt(this.notification));
     float value = 0.0F;
     if ((this.value instanceof GameMode)) {
-      value = ((Integer)MagicValues.value(Integer.class, (Enum)this.value)).intValue();
+      value = MagicValues.valueInt((Enum)this.value);
     }
     if ((this.value instanceof DemoMessageValue)) {
-      value = ((Integer)MagicValues.value(Integer.class, (Enum)this.value)).intValue();
+      value = MagicValues.valueInt((Enum)this.value);
     }
     if ((this.value instanceof RainStrengthValue)) {
       value = ((RainStrengthValue)this.value).getStrength();
@@ -15,10 +15,10 @@ import org.spacehq.mc.protocol.data.game.values.world.effect.WorldEffectData;
 import org.spacehq.mc.protocol.util.NetUtil;
 import org.spacehq.packetlib.io.NetInput;
 import org.spacehq.packetlib.io.NetOutput;
-import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.DroppablePacket;
 
 public class ServerPlayEffectPacket
-  implements Packet
+  implements DroppablePacket
 {
   private WorldEffect effect;
   private Position position;
@@ -65,16 +65,16 @@ public class ServerPlayEffectPacket
   {
     int id = in.readInt();
     if (id >= 2000) {
-      this.effect = ((WorldEffect)MagicValues.key(ParticleEffect.class, Integer.valueOf(id)));
+      this.effect = ((WorldEffect)MagicValues.keyInt(ParticleEffect.class, id));
     } else {
-      this.effect = ((WorldEffect)MagicValues.key(SoundEffect.class, Integer.valueOf(id)));
+      this.effect = ((WorldEffect)MagicValues.keyInt(SoundEffect.class, id));
     }
     this.position = NetUtil.readPosition(in);
     int value = in.readInt();
     if (this.effect == SoundEffect.PLAY_RECORD) {
       this.data = new RecordEffectData(value);
     } else if (this.effect == ParticleEffect.SMOKE) {
-      this.data = ((WorldEffectData)MagicValues.key(SmokeEffectData.class, Integer.valueOf(value)));
+      this.data = ((WorldEffectData)MagicValues.keyInt(SmokeEffectData.class, value));
     } else if (this.effect == ParticleEffect.BREAK_BLOCK) {
       this.data = new BreakBlockEffectData(value);
     } else if (this.effect == ParticleEffect.BREAK_SPLASH_POTION) {
@@ -90,9 +90,9 @@ public class ServerPlayEffectPacket
   {
     int id = 0;
     if ((this.effect instanceof ParticleEffect)) {
-      id = ((Integer)MagicValues.value(Integer.class, (ParticleEffect)this.effect)).intValue();
+      id = MagicValues.valueInt((ParticleEffect)this.effect);
     } else if ((this.effect instanceof SoundEffect)) {
-      id = ((Integer)MagicValues.value(Integer.class, (SoundEffect)this.effect)).intValue();
+      id = MagicValues.valueInt((SoundEffect)this.effect);
     }
     out.writeInt(id);
     NetUtil.writePosition(out, this.position);
@@ -100,7 +100,7 @@ public class ServerPlayEffectPacket
     if ((this.data instanceof RecordEffectData)) {
       value = ((RecordEffectData)this.data).getRecordId();
     } else if ((this.data instanceof SmokeEffectData)) {
-      value = ((Integer)MagicValues.value(Integer.class, (SmokeEffectData)this.data)).intValue();
+      value = MagicValues.valueInt((SmokeEffectData)this.data);
     } else if ((this.data instanceof BreakBlockEffectData)) {
       value = ((BreakBlockEffectData)this.data).getBlockId();
     } else if ((this.data instanceof BreakPotionEffectData)) {
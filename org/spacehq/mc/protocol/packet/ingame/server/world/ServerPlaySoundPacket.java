@@ -7,10 +7,10 @@ import org.spacehq.mc.protocol.data.game.values.world.GenericSound;
 import org.spacehq.mc.protocol.data.game.values.world.Sound;
 import org.spacehq.packetlib.io.NetInput;
 import org.spacehq.packetlib.io.NetOutput;
-import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.DroppablePacket;
 
 public class ServerPlaySoundPacket
-  implements Packet
+  implements DroppablePacket
 {
   private Sound sound;
   private double x;
@@ -5,10 +5,10 @@ import org.spacehq.mc.protocol.data.game.values.MagicValues;
 import org.spacehq.mc.protocol.data.game.values.world.Particle;
 import org.spacehq.packetlib.io.NetInput;
 import org.spacehq.packetlib.io.NetOutput;
-import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.DroppablePacket;
 
 public class ServerSpawnParticlePacket
-  implements Packet
+  implements DroppablePacket
 {
   private Particle particle;
   private boolean longDistance;
@@ -100,7 +100,7 @@ public class ServerSpawnParticlePacket
   public void read(NetInput in)
     throws IOException
   {
-    this.particle = ((Particle)MagicValues.key(Particle.class, Integer.valueOf(in.readInt())));
+    this.particle = ((Particle)MagicValues.keyInt(Particle.class, in.readInt()));
     this.longDistance = in.readBoolean();
     this.x = in.readFloat();
     this.y = in.readFloat();
@@ -119,7 +119,7 @@ public class ServerSpawnParticlePacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeInt(((Integer)MagicValues.value(Integer.class, this.particle)).intValue());
+    out.writeInt(MagicValues.valueInt(this.particle));
     out.writeBoolean(this.longDistance);
     out.writeFloat(this.x);
     out.writeFloat(this.y);
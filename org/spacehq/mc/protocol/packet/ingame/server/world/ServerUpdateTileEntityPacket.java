@@ -45,7 +45,7 @@ public class ServerUpdateTileEntityPacket
     throws IOException
   {
     this.position = NetUtil.readPosition(in);
-    this.type = ((UpdatedTileType)MagicValues.key(UpdatedTileType.class, Integer.valueOf(in.readUnsignedByte())));
+    this.type = ((UpdatedTileType)MagicValues.keyInt(UpdatedTileType.class, in.readUnsignedByte()));
     this.nbt = NetUtil.readNBT(in);
   }
   
@@ -53,7 +53,7 @@ public class ServerUpdateTileEntityPacket
     throws IOException
   {
     NetUtil.writePosition(out, this.position);
-    out.writeByte(((Integer)MagicValues.value(Integer.class, this.type)).intValue());
+    out.writeByte(MagicValues.valueInt(this.type));
     NetUtil.writeNBT(out, this.nbt);
   }
   
@@ -124,7 +124,7 @@ public class ServerWorldBorderPacket
   public void read(NetInput in)
     throws IOException
   {
-    this.action = ((WorldBorderAction)MagicValues.key(WorldBorderAction.class, Integer.valueOf(in.readVarInt())));
+    this.action = ((WorldBorderAction)MagicValues.keyInt(WorldBorderAction.class, in.readVarInt()));
     if (this.action == WorldBorderAction.SET_SIZE)
     {
       this.radius = in.readDouble();
@@ -164,7 +164,7 @@ public class ServerWorldBorderPacket
   public void write(NetOutput out)
     throws IOException
   {
-    out.writeVarInt(((Integer)MagicValues.value(Integer.class, this.action)).intValue());
+    out.writeVarInt(MagicValues.valueInt(this.action));
     if (this.action == WorldBorderAction.SET_SIZE)
     {
       out.writeDouble(this.radius);
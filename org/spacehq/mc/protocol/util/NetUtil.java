@@ -109,7 +109,7 @@ public class NetUtil
     {
       int typeId = (b & 0xE0) >> 5;
       int id = b & 0x1F;
-      MetadataType type = (MetadataType)MagicValues.key(MetadataType.class, Integer.valueOf(typeId));
+      MetadataType type = (MetadataType)MagicValues.keyInt(MetadataType.class, typeId);
       Object value;
       Object value;
       Object value;
@@ -158,7 +158,7 @@ public class NetUtil
   {
     for (EntityMetadata meta : metadata)
     {
-      int id = ((Integer)MagicValues.value(Integer.class, meta.getType())).intValue() << 5 | meta.getId() & 0x1F;
+      int id = MagicValues.valueInt(meta.getType()) << 5 | meta.getId() & 0x1F;
       out.writeByte(id);
       switch (meta.getType())
       {
@@ -201,114 +201,86 @@ public class NetUtil
   
   public static ParsedChunkData dataToChunks(NetworkChunkData data, boolean checkForSky)
   {
+    byte[] bytes = data.getData();
+    int mask = data.getMask() & 0xFFFF;
+    int sections = Integer.bitCount(mask);
+    int biomes = data.isFullChunk() ? 256 : 0;
+    boolean sky = (data.hasSkyLight()) || ((checkForSky) && (bytes.length > sections * 10240 + biomes));
+    int blocklightPos = sections * 8192;
+    int skylightPos = blocklightPos + sections * 2048;
+    int biomePos = skylightPos + (sky ? sections * 2048 : 0);
+    if (bytes.length < biomePos + biomes) {
+      throw new IllegalArgumentException("Chunk data is too short (expected " + (biomePos + biomes) + " bytes, got " + bytes.length + ").");
+    }
+    ShortBuffer buf = ByteBuffer.wrap(bytes, 0, blocklightPos).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    short[] blocks = new short[4096];
     Chunk[] chunks = new Chunk[16];
-    int pos = 0;
-    int expected = 0;
-    boolean sky = false;
-    ShortBuffer buf = ByteBuffer.wrap(data.getData()).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
-    for (int pass = 0; pass < 4; pass++)
-    {
-      for (int ind = 0; ind < 16; ind++) {
-        if ((data.getMask() & 1 << ind) != 0)
-        {
-          if (pass == 0) {
-            expected += 10240;
-          }
-          if (pass == 1)
-          {
-            chunks[ind] = new Chunk((sky) || (data.hasSkyLight()));
-            ShortArray3d blocks = chunks[ind].getBlocks();
-            buf.position(pos / 2);
-            buf.get(blocks.getData(), 0, blocks.getData().length);
-            pos += blocks.getData().length * 2;
-          }
-          if (pass == 2)
-          {
-            NibbleArray3d blocklight = chunks[ind].getBlockLight();
-            System.arraycopy(data.getData(), pos, blocklight.getData(), 0, blocklight.getData().length);
-            pos += blocklight.getData().length;
-          }
-          if ((pass == 3) && ((sky) || (data.hasSkyLight())))
-          {
-            NibbleArray3d skylight = chunks[ind].getSkyLight();
-            System.arraycopy(data.getData(), pos, skylight.getData(), 0, skylight.getData().length);
-            pos += skylight.getData().length;
-          }
-        }
-      }
-      if (pass == 0) {
-        if (data.getData().length > expected) {
-          sky = checkForSky;
+    int section = 0;
+    for (int ind = 0; ind < 16; ind++) {
+      if ((mask & 1 << ind) != 0)
+      {
+        Chunk chunk = new Chunk(sky);
+        buf.get(blocks, 0, blocks.length);
+        chunk.getBlocks().load(blocks, 0);
+        chunk.getBlockLight().load(bytes, blocklightPos + section * 2048);
+        if (sky) {
+          chunk.getSkyLight().load(bytes, skylightPos + section * 2048);
         }
+        chunks[ind] = chunk;
+        section++;
       }
     }
     byte[] biomeData = null;
     if (data.isFullChunk())
     {
       biomeData = new byte['Ā'];
-      System.arraycopy(data.getData(), pos, biomeData, 0, biomeData.length);
-      pos += biomeData.length;
+      System.arraycopy(bytes, biomePos, biomeData, 0, biomeData.length);
     }
     return new ParsedChunkData(chunks, biomeData);
   }
   
   public static NetworkChunkData chunksToData(ParsedChunkData chunks)
   {
+    Chunk[] column = chunks.getChunks();
+    byte[] biomes = chunks.getBiomes();
+    boolean fullChunk = biomes != null;
     int chunkMask = 0;
-    boolean fullChunk = chunks.getBiomes() != null;
+    int sections = 0;
     boolean sky = false;
-    int length = fullChunk ? chunks.getBiomes().length : 0;
-    byte[] data = null;
-    int pos = 0;
-    ShortBuffer buf = null;
-    for (int pass = 0; pass < 4; pass++)
+    for (int ind = 0; ind < column.length; ind++)
     {
-      for (int ind = 0; ind < chunks.getChunks().length; ind++)
+      Chunk chunk = column[ind];
+      if ((chunk != null) && ((!fullChunk) || (!chunk.isEmpty())))
       {
-        Chunk chunk = chunks.getChunks()[ind];
-        if ((chunk != null) && ((!fullChunk) || (!chunk.isEmpty())))
-        {
-          if (pass == 0)
-          {
-            chunkMask |= 1 << ind;
-            length += chunk.getBlocks().getData().length * 2;
-            length += chunk.getBlockLight().getData().length;
-            if (chunk.getSkyLight() != null) {
-              length += chunk.getSkyLight().getData().length;
-            }
-          }
-          if (pass == 1)
-          {
-            short[] blocks = chunk.getBlocks().getData();
-            buf.position(pos / 2);
-            buf.put(blocks, 0, blocks.length);
-            pos += blocks.length * 2;
-          }
-          if (pass == 2)
-          {
-            byte[] blocklight = chunk.getBlockLight().getData();
-            System.arraycopy(blocklight, 0, data, pos, blocklight.length);
-            pos += blocklight.length;
-          }
-          if ((pass == 3) && (chunk.getSkyLight() != null))
-          {
-            byte[] skylight = chunk.getSkyLight().getData();
-            System.arraycopy(skylight, 0, data, pos, skylight.length);
-            pos += skylight.length;
-            sky = true;
-          }
+        chunkMask |= 1 << ind;
+        sections++;
+        if (chunk.getSkyLight() != null) {
+          sky = true;
         }
       }
-      if (pass == 0)
+    }
+    int blocklightPos = sections * 8192;
+    int skylightPos = blocklightPos + sections * 2048;
+    int biomePos = skylightPos + (sky ? sections * 2048 : 0);
+    byte[] data = new byte[biomePos + (fullChunk ? biomes.length : 0)];
+    ShortBuffer buf = ByteBuffer.wrap(data, 0, blocklightPos).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    short[] blocks = new short[4096];
+    int section = 0;
+    for (int ind = 0; ind < column.length; ind++) {
+      if ((chunkMask & 1 << ind) != 0)
       {
-        data = new byte[length];
-        buf = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        Chunk chunk = column[ind];
+        chunk.getBlocks().copyTo(blocks, 0);
+        buf.put(blocks, 0, blocks.length);
+        chunk.getBlockLight().copyTo(data, blocklightPos + section * 2048);
+        if (chunk.getSkyLight() != null) {
+          chunk.getSkyLight().copyTo(data, skylightPos + section * 2048);
+        }
+        section++;
       }
     }
-    if (fullChunk)
-    {
-      System.arraycopy(chunks.getBiomes(), 0, data, pos, chunks.getBiomes().length);
-      pos += chunks.getBiomes().length;
+    if (fullChunk) {
+      System.arraycopy(biomes, 0, data, biomePos, biomes.length);
     }
     return new NetworkChunkData(chunkMask, fullChunk, sky, data);
   }
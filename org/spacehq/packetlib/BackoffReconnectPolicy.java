@@ -0,0 +1,81 @@
+package org.spacehq.packetlib;
+
+import java.util.Random;
+
+public class BackoffReconnectPolicy
+  implements ReconnectPolicy
+{
+  private long baseDelay;
+  private long maxDelay;
+  private long kickDelay = 5000L;
+  private int maxAttempts = 0;
+  private boolean retryAuthFailures = false;
+  private Random random = new Random();
+  
+  public BackoffReconnectPolicy()
+  {
+    this(500L, 60000L);
+  }
+  
+  public BackoffReconnectPolicy(long baseDelay, long maxDelay)
+  {
+    if ((baseDelay <= 0L) || (maxDelay < baseDelay)) {
+      throw new IllegalArgumentException("Invalid reconnect delays: base " + baseDelay + ", max " + maxDelay + ".");
+    }
+    this.baseDelay = baseDelay;
+    this.maxDelay = maxDelay;
+  }
+  
+  public long getBaseDelay()
+  {
+    return this.baseDelay;
+  }
+  
+  public long getMaxDelay()
+  {
+    return this.maxDelay;
+  }
+  
+  public long getKickDelay()
+  {
+    return this.kickDelay;
+  }
+  
+  public void setKickDelay(long delay)
+  {
+    this.kickDelay = delay;
+  }
+  
+  public int getMaxAttempts()
+  {
+    return this.maxAttempts;
+  }
+  
+  public void setMaxAttempts(int attempts)
+  {
+    this.maxAttempts = attempts;
+  }
+  
+  public boolean isRetryAuthFailures()
+  {
+    return this.retryAuthFailures;
+  }
+  
+  public void setRetryAuthFailures(boolean retry)
+  {
+    this.retryAuthFailures = retry;
+  }
+  
+  public long getReconnectDelay(DisconnectType type, int attempt)
+  {
+    if (((type == DisconnectType.AUTH_FAILED) && (!this.retryAuthFailures)) || ((this.maxAttempts > 0) && (attempt > this.maxAttempts))) {
+      return -1L;
+    }
+    long delay = Math.min(this.maxDelay, this.baseDelay << Math.min(Math.max(attempt - 1, 0), 20));
+    delay = delay / 2L + (long)(this.random.nextDouble() * (delay / 2L + 1L));
+    if (type == DisconnectType.KICKED) {
+      delay = Math.max(delay, this.kickDelay);
+    }
+    return delay;
+  }
+}
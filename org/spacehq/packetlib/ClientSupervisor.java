@@ -0,0 +1,199 @@
+package org.spacehq.packetlib;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.WriteTimeoutException;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.spacehq.packetlib.event.session.ConnectedEvent;
+import org.spacehq.packetlib.event.session.DisconnectedEvent;
+import org.spacehq.packetlib.event.session.SessionAdapter;
+import org.spacehq.packetlib.packet.PacketProtocol;
+
+public abstract class ClientSupervisor
+{
+  private String host;
+  private int port;
+  private SessionFactory factory;
+  private SessionInitializer initializer;
+  private ReconnectPolicy policy = new BackoffReconnectPolicy();
+  private long stableTime = 30000L;
+  private boolean running = false;
+  private int attempts = 0;
+  private Client client;
+  private ScheduledFuture<?> reconnectTask;
+  
+  public ClientSupervisor(String host, int port, SessionFactory factory)
+  {
+    this.host = host;
+    this.port = port;
+    this.factory = factory;
+  }
+  
+  public String getHost()
+  {
+    return this.host;
+  }
+  
+  public int getPort()
+  {
+    return this.port;
+  }
+  
+  public SessionInitializer getSessionInitializer()
+  {
+    return this.initializer;
+  }
+  
+  public void setSessionInitializer(SessionInitializer initializer)
+  {
+    this.initializer = initializer;
+  }
+  
+  public ReconnectPolicy getReconnectPolicy()
+  {
+    return this.policy;
+  }
+  
+  public void setReconnectPolicy(ReconnectPolicy policy)
+  {
+    if (policy == null) {
+      throw new IllegalArgumentException("Reconnect policy cannot be null.");
+    }
+    this.policy = policy;
+  }
+  
+  public long getStableTime()
+  {
+    return this.stableTime;
+  }
+  
+  public void setStableTime(long time)
+  {
+    this.stableTime = time;
+  }
+  
+  public synchronized boolean isRunning()
+  {
+    return this.running;
+  }
+  
+  public synchronized int getAttempts()
+  {
+    return this.attempts;
+  }
+  
+  public synchronized Client getClient()
+  {
+    return this.client;
+  }
+  
+  public synchronized Session getSession()
+  {
+    return this.client != null ? this.client.getSession() : null;
+  }
+  
+  public synchronized void start()
+  {
+    if (this.running) {
+      return;
+    }
+    this.running = true;
+    this.attempts = 0;
+    connect();
+  }
+  
+  public synchronized void stop()
+  {
+    stop("Supervisor stopped.");
+  }
+  
+  public synchronized void stop(String reason)
+  {
+    this.running = false;
+    if (this.reconnectTask != null)
+    {
+      this.reconnectTask.cancel(false);
+      this.reconnectTask = null;
+    }
+    if (this.client != null) {
+      this.client.getSession().disconnect(reason);
+    }
+  }
+  
+  protected abstract PacketProtocol createPacketProtocol();
+  
+  protected void initSession(Session session)
+  {
+    if (this.initializer != null) {
+      this.initializer.initSession(session);
+    }
+  }
+  
+  protected DisconnectType classify(Session session, DisconnectedEvent event)
+  {
+    Throwable cause = event.getCause();
+    if (!session.getConnectFuture().isSuccess()) {
+      return DisconnectType.CONNECT_FAILED;
+    }
+    if (((cause instanceof ReadTimeoutException)) || ((cause instanceof WriteTimeoutException))) {
+      return DisconnectType.TIMEOUT;
+    }
+    if (cause != null) {
+      return DisconnectType.NETWORK_ERROR;
+    }
+    return DisconnectType.CLOSED;
+  }
+  
+  protected void reconnect()
+  {
+    connect();
+  }
+  
+  private synchronized void connect()
+  {
+    this.reconnectTask = null;
+    if (!this.running) {
+      return;
+    }
+    this.client = new Client(this.host, this.port, createPacketProtocol(), this.factory);
+    final Session session = this.client.getSession();
+    initSession(session);
+    session.addListener(new SessionAdapter()
+    {
+      private long connectedAt = -1L;
+      
+      public void connected(ConnectedEvent event)
+      {
+        this.connectedAt = System.currentTimeMillis();
+      }
+      
+      public void disconnected(DisconnectedEvent event)
+      {
+        ClientSupervisor.this.disconnected(session, event, (this.connectedAt >= 0L) && (System.currentTimeMillis() - this.connectedAt >= ClientSupervisor.this.stableTime));
+      }
+    });
+    session.connectAsync();
+  }
+  
+  private synchronized void disconnected(Session session, DisconnectedEvent event, boolean stable)
+  {
+    if ((!this.running) || (this.client == null) || (this.client.getSession() != session)) {
+      return;
+    }
+    this.attempts = (stable ? 1 : this.attempts + 1);
+    long delay = this.policy.getReconnectDelay(classify(session, event), this.attempts);
+    if (delay < 0L)
+    {
+      this.running = false;
+      return;
+    }
+    this.reconnectTask = GlobalEventExecutor.INSTANCE.schedule(new Runnable()
+    {
+      public void run()
+      {
+        ClientSupervisor.this.reconnect();
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+}
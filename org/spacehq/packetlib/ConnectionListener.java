@@ -1,5 +1,8 @@
 package org.spacehq.packetlib;
 
+import java.util.List;
+import org.spacehq.packetlib.packet.Packet;
+
 public abstract interface ConnectionListener
 {
   public abstract String getHost();
@@ -19,4 +22,6 @@ public abstract interface ConnectionListener
   public abstract void close(boolean paramBoolean);
   
   public abstract void close(boolean paramBoolean, Runnable paramRunnable);
+  
+  public abstract void broadcast(Packet paramPacket, List<Session> paramList);
 }
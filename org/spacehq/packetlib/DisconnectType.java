@@ -0,0 +1,8 @@
+package org.spacehq.packetlib;
+
+public enum DisconnectType
+{
+  CONNECT_FAILED,  TIMEOUT,  NETWORK_ERROR,  CLOSED,  KICKED,  AUTH_EXPIRED,  AUTH_FAILED;
+  
+  private DisconnectType() {}
+}
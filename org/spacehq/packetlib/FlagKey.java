@@ -0,0 +1,107 @@
+package org.spacehq.packetlib;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class FlagKey<T>
+{
+  private static final Map<String, FlagKey<Object>> NAMED = new ConcurrentHashMap();
+  private static volatile String[] names = new String[0];
+  private String name;
+  private Class<T> type;
+  private int index;
+  
+  private FlagKey(String name, Class<T> type, int index)
+  {
+    this.name = name;
+    this.type = type;
+    this.index = index;
+  }
+  
+  public static <T> FlagKey<T> create(String name, Class<T> type)
+  {
+    if ((name == null) || (type == null)) {
+      throw new IllegalArgumentException("Flag name and type cannot be null.");
+    }
+    FlagKey<Object> named = named(name);
+    if (type == Object.class) {
+      return (FlagKey<T>)named;
+    }
+    return new FlagKey(name, type, named.index);
+  }
+  
+  public static FlagKey<Object> find(String name)
+  {
+    return (FlagKey)NAMED.get(name);
+  }
+  
+  public static FlagKey<Object> named(String name)
+  {
+    FlagKey<Object> key = (FlagKey)NAMED.get(name);
+    if (key != null) {
+      return key;
+    }
+    synchronized (NAMED)
+    {
+      key = (FlagKey)NAMED.get(name);
+      if (key == null)
+      {
+        String[] grown = (String[])Arrays.copyOf(names, names.length + 1);
+        grown[(grown.length - 1)] = name;
+        key = new FlagKey(name, Object.class, grown.length - 1);
+        names = grown;
+        NAMED.put(name, key);
+      }
+      return key;
+    }
+  }
+  
+  protected static int count()
+  {
+    return names.length;
+  }
+  
+  protected static String nameOf(int index)
+  {
+    return names[index];
+  }
+  
+  public String getName()
+  {
+    return this.name;
+  }
+  
+  public Class<T> getType()
+  {
+    return this.type;
+  }
+  
+  public int getIndex()
+  {
+    return this.index;
+  }
+  
+  public T cast(Object value)
+  {
+    if ((value == null) || (this.type.isInstance(value))) {
+      return (T)value;
+    }
+    throw new IllegalStateException("Tried to get flag \"" + this.name + "\" as the wrong type. Actual type: " + value.getClass().getName());
+  }
+  
+  public boolean equals(Object o)
+  {
+    return ((o instanceof FlagKey)) && (((FlagKey)o).index == this.index) && (((FlagKey)o).type == this.type);
+  }
+  
+  public int hashCode()
+  {
+    return this.index * 31 + this.type.hashCode();
+  }
+  
+  public String toString()
+  {
+    return this.name;
+  }
+}
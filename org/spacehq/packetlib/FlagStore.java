@@ -0,0 +1,60 @@
+package org.spacehq.packetlib;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class FlagStore
+{
+  private volatile AtomicReferenceArray<Object> values = new AtomicReferenceArray(FlagKey.count() + 8);
+  
+  public boolean has(FlagKey<?> key)
+  {
+    AtomicReferenceArray<Object> values = this.values;
+    return (key.getIndex() < values.length()) && (values.get(key.getIndex()) != null);
+  }
+  
+  public <T> T get(FlagKey<T> key)
+  {
+    AtomicReferenceArray<Object> values = this.values;
+    if (key.getIndex() >= values.length()) {
+      return null;
+    }
+    return (T)key.cast(values.get(key.getIndex()));
+  }
+  
+  public synchronized <T> void set(FlagKey<T> key, T value)
+  {
+    if ((value != null) && (!key.getType().isInstance(value))) {
+      throw new IllegalArgumentException("Value for flag \"" + key.getName() + "\" must be a " + key.getType().getName() + ".");
+    }
+    if (key.getIndex() >= this.values.length()) {
+      grow(key.getIndex());
+    }
+    this.values.set(key.getIndex(), value);
+  }
+  
+  public Map<String, Object> toMap()
+  {
+    AtomicReferenceArray<Object> values = this.values;
+    Map<String, Object> map = new HashMap();
+    for (int index = 0; index < values.length(); index++)
+    {
+      Object value = values.get(index);
+      if (value != null) {
+        map.put(FlagKey.nameOf(index), value);
+      }
+    }
+    return map;
+  }
+  
+  private void grow(int index)
+  {
+    AtomicReferenceArray<Object> values = this.values;
+    AtomicReferenceArray<Object> grown = new AtomicReferenceArray(Math.max(index + 1, values.length() * 2));
+    for (int slot = 0; slot < values.length(); slot++) {
+      grown.set(slot, values.get(slot));
+    }
+    this.values = grown;
+  }
+}
@@ -0,0 +1,6 @@
+package org.spacehq.packetlib;
+
+public abstract interface ReconnectPolicy
+{
+  public abstract long getReconnectDelay(DisconnectType paramDisconnectType, int paramInt);
+}
@@ -2,9 +2,9 @@ package org.spacehq.packetlib;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.spacehq.packetlib.event.server.ServerBoundEvent;
 import org.spacehq.packetlib.event.server.ServerClosedEvent;
 import org.spacehq.packetlib.event.server.ServerClosingEvent;
@@ -12,6 +12,7 @@ import org.spacehq.packetlib.event.server.ServerEvent;
 import org.spacehq.packetlib.event.server.ServerListener;
 import org.spacehq.packetlib.event.server.SessionAddedEvent;
 import org.spacehq.packetlib.event.server.SessionRemovedEvent;
+import org.spacehq.packetlib.packet.Packet;
 import org.spacehq.packetlib.packet.PacketProtocol;
 
 public class Server
@@ -21,8 +22,8 @@ public class Server
   private Class<? extends PacketProtocol> protocol;
   private SessionFactory factory;
   private ConnectionListener listener;
-  private List<Session> sessions = new ArrayList();
-  private Map<String, Object> flags = new HashMap();
+  private List<Session> sessions = new CopyOnWriteArrayList();
+  private FlagStore flags = new FlagStore();
   private List<ServerListener> listeners = new ArrayList();
   
   public Server(String host, int port, Class<? extends PacketProtocol> protocol, SessionFactory factory)
@@ -88,33 +89,39 @@ public class Server
   
   public Map<String, Object> getGlobalFlags()
   {
-    return new HashMap(this.flags);
+    return this.flags.toMap();
   }
   
   public boolean hasGlobalFlag(String key)
   {
-    return this.flags.containsKey(key);
+    FlagKey<Object> flag = FlagKey.find(key);
+    return (flag != null) && (hasGlobalFlag(flag));
   }
   
   public <T> T getGlobalFlag(String key)
   {
-    Object value = this.flags.get(key);
-    if (value == null) {
-      return null;
-    }
-    try
-    {
-      return (T)value;
-    }
-    catch (ClassCastException e)
-    {
-      throw new IllegalStateException("Tried to get flag \"" + key + "\" as the wrong type. Actual type: " + value.getClass().getName());
-    }
+    FlagKey<Object> flag = FlagKey.find(key);
+    return flag != null ? (T)getGlobalFlag(flag) : null;
   }
   
   public void setGlobalFlag(String key, Object value)
   {
-    this.flags.put(key, value);
+    setGlobalFlag(FlagKey.named(key), value);
+  }
+  
+  public boolean hasGlobalFlag(FlagKey<?> key)
+  {
+    return this.flags.has(key);
+  }
+  
+  public <T> T getGlobalFlag(FlagKey<T> key)
+  {
+    return (T)this.flags.get(key);
+  }
+  
+  public <T> void setGlobalFlag(FlagKey<T> key, T value)
+  {
+    this.flags.set(key, value);
   }
   
   public List<ServerListener> getListeners()
@@ -144,6 +151,31 @@ public class Server
     return new ArrayList(this.sessions);
   }
   
+  public void broadcast(Packet packet)
+  {
+    broadcast(packet, null);
+  }
+  
+  public void broadcast(Packet packet, SessionFilter filter)
+  {
+    List<Session> targets = new ArrayList();
+    for (Session session : getSessions()) {
+      if ((session.isConnected()) && ((filter == null) || (filter.accept(session)))) {
+        targets.add(session);
+      }
+    }
+    if (targets.isEmpty()) {
+      return;
+    }
+    if (this.listener != null) {
+      this.listener.broadcast(packet, targets);
+    } else {
+      for (Session session : targets) {
+        session.send(packet);
+      }
+    }
+  }
+  
   public void addSession(Session session)
   {
     this.sessions.add(session);
@@ -1,10 +1,16 @@
 package org.spacehq.packetlib;
 
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.spacehq.packetlib.event.session.SessionEvent;
 import org.spacehq.packetlib.event.session.SessionListener;
 import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.PacketHandler;
 import org.spacehq.packetlib.packet.PacketProtocol;
 
 public abstract interface Session
@@ -13,6 +19,12 @@ public abstract interface Session
   
   public abstract void connect(boolean paramBoolean);
   
+  public abstract Future<Session> connectAsync();
+  
+  public abstract Future<Session> getConnectFuture();
+  
+  public abstract Future<Session> getDisconnectFuture();
+  
   public abstract String getHost();
   
   public abstract int getPort();
@@ -27,6 +39,12 @@ public abstract interface Session
   
   public abstract void setFlag(String paramString, Object paramObject);
   
+  public abstract boolean hasFlag(FlagKey<?> paramFlagKey);
+  
+  public abstract <T> T getFlag(FlagKey<T> paramFlagKey);
+  
+  public abstract <T> void setFlag(FlagKey<T> paramFlagKey, T paramT);
+  
   public abstract List<SessionListener> getListeners();
   
   public abstract void addListener(SessionListener paramSessionListener);
@@ -35,6 +53,22 @@ public abstract interface Session
   
   public abstract void callEvent(SessionEvent paramSessionEvent);
   
+  public abstract <T extends Packet> void on(Class<T> paramClass, PacketHandler<? super T> paramPacketHandler);
+  
+  public abstract <T extends Packet> void off(Class<T> paramClass, PacketHandler<? super T> paramPacketHandler);
+  
+  public abstract Set<Class<? extends Packet>> getPacketInterests();
+  
+  public abstract void addPacketInterest(Class<? extends Packet> paramClass);
+  
+  public abstract void removePacketInterest(Class<? extends Packet> paramClass);
+  
+  public abstract boolean isPacketFiltering();
+  
+  public abstract void setPacketFiltering(boolean paramBoolean);
+  
+  public abstract boolean isInterested(Class<? extends Packet> paramClass);
+  
   public abstract int getCompressionThreshold();
   
   public abstract void setCompressionThreshold(int paramInt);
@@ -55,6 +89,16 @@ public abstract interface Session
   
   public abstract void send(Packet paramPacket);
   
+  public abstract void sendAll(Collection<? extends Packet> paramCollection);
+  
+  public abstract ScheduledFuture<?> schedule(Runnable paramRunnable, long paramLong1, long paramLong2);
+  
+  public abstract ScheduledFuture<?> schedule(Runnable paramRunnable, long paramLong1, long paramLong2, TimeUnit paramTimeUnit);
+  
+  public abstract boolean isPacketSentEvents();
+  
+  public abstract void setPacketSentEvents(boolean paramBoolean);
+  
   public abstract void disconnect(String paramString);
   
   public abstract void disconnect(String paramString, boolean paramBoolean);
@@ -0,0 +1,6 @@
+package org.spacehq.packetlib;
+
+public abstract interface SessionFilter
+{
+  public abstract boolean accept(Session paramSession);
+}
@@ -0,0 +1,6 @@
+package org.spacehq.packetlib;
+
+public abstract interface SessionInitializer
+{
+  public abstract void initSession(Session paramSession);
+}
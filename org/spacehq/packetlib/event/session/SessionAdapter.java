@@ -12,4 +12,6 @@ public class SessionAdapter
   public void disconnecting(DisconnectingEvent event) {}
   
   public void disconnected(DisconnectedEvent event) {}
+  
+  public void writabilityChanged(WritabilityChangedEvent event) {}
 }
@@ -11,4 +11,6 @@ public abstract interface SessionListener
   public abstract void disconnecting(DisconnectingEvent paramDisconnectingEvent);
   
   public abstract void disconnected(DisconnectedEvent paramDisconnectedEvent);
+  
+  public abstract void writabilityChanged(WritabilityChangedEvent paramWritabilityChangedEvent);
 }
@@ -0,0 +1,31 @@
+package org.spacehq.packetlib.event.session;
+
+import org.spacehq.packetlib.Session;
+
+public class WritabilityChangedEvent
+  implements SessionEvent
+{
+  private Session session;
+  private boolean writable;
+  
+  public WritabilityChangedEvent(Session session, boolean writable)
+  {
+    this.session = session;
+    this.writable = writable;
+  }
+  
+  public Session getSession()
+  {
+    return this.session;
+  }
+  
+  public boolean isWritable()
+  {
+    return this.writable;
+  }
+  
+  public void call(SessionListener listener)
+  {
+    listener.writabilityChanged(this);
+  }
+}
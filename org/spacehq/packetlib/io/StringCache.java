@@ -0,0 +1,101 @@
+package org.spacehq.packetlib.io;
+
+import java.nio.charset.Charset;
+
+public class StringCache
+{
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final StringCache DEFAULT = new StringCache(1024, 32);
+  private Entry[] entries;
+  private int maxLength;
+  
+  public StringCache(int size, int maxLength)
+  {
+    if ((size <= 0) || ((size & size - 1) != 0)) {
+      throw new IllegalArgumentException("Cache size must be a positive power of two: " + size);
+    }
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("Invalid maximum cached string length: " + maxLength);
+    }
+    this.entries = new Entry[size];
+    this.maxLength = maxLength;
+  }
+  
+  public static StringCache getDefault()
+  {
+    return DEFAULT;
+  }
+  
+  public int getSize()
+  {
+    return this.entries.length;
+  }
+  
+  public int getMaxLength()
+  {
+    return this.maxLength;
+  }
+  
+  public void clear()
+  {
+    for (int index = 0; index < this.entries.length; index++) {
+      this.entries[index] = null;
+    }
+  }
+  
+  public String decode(byte[] bytes, int offset, int length)
+  {
+    if (length > this.maxLength) {
+      return new String(bytes, offset, length, UTF_8);
+    }
+    if (length == 0) {
+      return "";
+    }
+    int hash = 0;
+    for (int index = offset; index < offset + length; index++)
+    {
+      byte b = bytes[index];
+      if (b < 0) {
+        return new String(bytes, offset, length, UTF_8);
+      }
+      hash = 31 * hash + b;
+    }
+    Entry[] entries = this.entries;
+    int slot = (hash ^ hash >>> 16) & entries.length - 1;
+    Entry entry = entries[slot];
+    if ((entry != null) && (entry.hash == hash) && (entry.matches(bytes, offset, length))) {
+      return entry.value;
+    }
+    entry = new Entry(hash, bytes, offset, length);
+    entries[slot] = entry;
+    return entry.value;
+  }
+  
+  private static class Entry
+  {
+    private final int hash;
+    private final byte[] bytes;
+    private final String value;
+    
+    public Entry(int hash, byte[] bytes, int offset, int length)
+    {
+      this.hash = hash;
+      this.bytes = new byte[length];
+      System.arraycopy(bytes, offset, this.bytes, 0, length);
+      this.value = new String(this.bytes, 0, length, StringCache.UTF_8);
+    }
+    
+    public boolean matches(byte[] bytes, int offset, int length)
+    {
+      if (this.bytes.length != length) {
+        return false;
+      }
+      for (int index = 0; index < length; index++) {
+        if (this.bytes[index] != bytes[(offset + index)]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -1,9 +1,11 @@
 package org.spacehq.packetlib.io.buffer;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.UUID;
 import org.spacehq.packetlib.io.NetInput;
+import org.spacehq.packetlib.io.StringCache;
 
 public class ByteBufferNetInput
   implements NetInput
@@ -64,6 +66,49 @@ public class ByteBufferNetInput
   
   public int readVarInt()
     throws IOException
+  {
+    int index = this.buffer.position();
+    if (this.buffer.limit() - index < 5) {
+      return readVarIntSlow();
+    }
+    int b = this.buffer.get(index);
+    if (b >= 0)
+    {
+      this.buffer.position(index + 1);
+      return b;
+    }
+    int value = b & 0x7F;
+    b = this.buffer.get(index + 1);
+    if (b >= 0)
+    {
+      this.buffer.position(index + 2);
+      return value | b << 7;
+    }
+    value |= (b & 0x7F) << 7;
+    b = this.buffer.get(index + 2);
+    if (b >= 0)
+    {
+      this.buffer.position(index + 3);
+      return value | b << 14;
+    }
+    value |= (b & 0x7F) << 14;
+    b = this.buffer.get(index + 3);
+    if (b >= 0)
+    {
+      this.buffer.position(index + 4);
+      return value | b << 21;
+    }
+    value |= (b & 0x7F) << 21;
+    b = this.buffer.get(index + 4);
+    if (b < 0) {
+      throw new IOException("VarInt too long (length must be <= 5)");
+    }
+    this.buffer.position(index + 5);
+    return value | b << 28;
+  }
+  
+  private int readVarIntSlow()
+    throws IOException
   {
     int value = 0;
     int size = 0;
@@ -71,7 +116,7 @@ public class ByteBufferNetInput
     while (((b = readByte()) & 0x80) == 128)
     {
       value |= (b & 0x7F) << size++ * 7;
-      if (size > 5) {
+      if (size >= 5) {
         throw new IOException("VarInt too long (length must be <= 5)");
       }
     }
@@ -87,17 +132,17 @@ public class ByteBufferNetInput
   public long readVarLong()
     throws IOException
   {
-    int value = 0;
+    long value = 0L;
     int size = 0;
     int b;
     while (((b = readByte()) & 0x80) == 128)
     {
-      value |= (b & 0x7F) << size++ * 7;
-      if (size > 10) {
+      value |= (long)(b & 0x7F) << size++ * 7;
+      if (size >= 10) {
         throw new IOException("VarLong too long (length must be <= 10)");
       }
     }
-    return value | (b & 0x7F) << size * 7;
+    return value | (long)(b & 0x7F) << size * 7;
   }
   
   public float readFloat()
@@ -252,8 +297,23 @@ public class ByteBufferNetInput
     throws IOException
   {
     int length = readVarInt();
-    byte[] bytes = readBytes(length);
-    return new String(bytes, "UTF-8");
+    if (length < 0) {
+      throw new IOException("String cannot have length less than 0.");
+    }
+    if (length > this.buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    int index = this.buffer.position();
+    this.buffer.position(index + length);
+    StringCache cache = StringCache.getDefault();
+    if (this.buffer.hasArray()) {
+      return cache.decode(this.buffer.array(), this.buffer.arrayOffset() + index, length);
+    }
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = this.buffer.get(index + i);
+    }
+    return cache.decode(bytes, 0, length);
   }
   
   public UUID readUUID()
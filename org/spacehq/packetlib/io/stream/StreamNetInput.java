@@ -5,11 +5,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.UUID;
 import org.spacehq.packetlib.io.NetInput;
+import org.spacehq.packetlib.io.StringCache;
 
 public class StreamNetInput
   implements NetInput
 {
   private InputStream in;
+  private byte[] stringBytes;
   
   public StreamNetInput(InputStream in)
   {
@@ -73,17 +75,20 @@ public class StreamNetInput
   public int readVarInt()
     throws IOException
   {
+    InputStream in = this.in;
     int value = 0;
-    int size = 0;
-    int b;
-    while (((b = readByte()) & 0x80) == 128)
+    for (int shift = 0; shift < 35; shift += 7)
     {
-      value |= (b & 0x7F) << size++ * 7;
-      if (size > 5) {
-        throw new IOException("VarInt too long (length must be <= 5)");
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (b & 0x7F) << shift;
+      if (b < 128) {
+        return value;
       }
     }
-    return value | (b & 0x7F) << size * 7;
+    throw new IOException("VarInt too long (length must be <= 5)");
   }
   
   public long readLong()
@@ -96,17 +101,20 @@ public class StreamNetInput
   public long readVarLong()
     throws IOException
   {
-    int value = 0;
-    int size = 0;
-    int b;
-    while (((b = readByte()) & 0x80) == 128)
+    InputStream in = this.in;
+    long value = 0L;
+    for (int shift = 0; shift < 70; shift += 7)
     {
-      value |= (b & 0x7F) << size++ * 7;
-      if (size > 10) {
-        throw new IOException("VarLong too long (length must be <= 10)");
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (long)(b & 0x7F) << shift;
+      if (b < 128) {
+        return value;
       }
     }
-    return value | (b & 0x7F) << size * 7;
+    throw new IOException("VarLong too long (length must be <= 10)");
   }
   
   public float readFloat()
@@ -264,8 +272,26 @@ public class StreamNetInput
     throws IOException
   {
     int length = readVarInt();
-    byte[] bytes = readBytes(length);
-    return new String(bytes, "UTF-8");
+    if (length < 0) {
+      throw new IOException("String cannot have length less than 0.");
+    }
+    StringCache cache = StringCache.getDefault();
+    if (length > cache.getMaxLength()) {
+      return cache.decode(readBytes(length), 0, length);
+    }
+    if (this.stringBytes == null) {
+      this.stringBytes = new byte[cache.getMaxLength()];
+    }
+    int n = 0;
+    while (n < length)
+    {
+      int count = this.in.read(this.stringBytes, n, length - n);
+      if (count < 0) {
+        throw new EOFException();
+      }
+      n += count;
+    }
+    return cache.decode(this.stringBytes, 0, length);
   }
   
   public UUID readUUID()
@@ -0,0 +1,5 @@
+package org.spacehq.packetlib.packet;
+
+public abstract interface DroppablePacket
+  extends Packet
+{}
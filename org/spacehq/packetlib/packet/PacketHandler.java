@@ -0,0 +1,8 @@
+package org.spacehq.packetlib.packet;
+
+import org.spacehq.packetlib.Session;
+
+public abstract interface PacketHandler<T extends Packet>
+{
+  public abstract void handle(Session paramSession, T paramT);
+}
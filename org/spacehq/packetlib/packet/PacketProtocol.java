@@ -1,8 +1,5 @@
 package org.spacehq.packetlib.packet;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
-import java.util.Map;
 import org.spacehq.packetlib.Client;
 import org.spacehq.packetlib.Server;
 import org.spacehq.packetlib.Session;
@@ -10,8 +7,7 @@ import org.spacehq.packetlib.crypt.PacketEncryption;
 
 public abstract class PacketProtocol
 {
-  private final Map<Integer, Class<? extends Packet>> incoming = new HashMap();
-  private final Map<Class<? extends Packet>, Integer> outgoing = new HashMap();
+  private volatile PacketRegistry packets = new PacketRegistry();
   
   public abstract String getSRVRecordPrefix();
   
@@ -23,66 +19,66 @@ public abstract class PacketProtocol
   
   public abstract void newServerSession(Server paramServer, Session paramSession);
   
+  public final PacketRegistry getPackets()
+  {
+    return this.packets;
+  }
+  
+  public final void setPackets(PacketRegistry packets)
+  {
+    if (packets == null) {
+      throw new IllegalArgumentException("Packet registry cannot be null.");
+    }
+    this.packets = packets;
+  }
+  
   public final void clearPackets()
   {
-    this.incoming.clear();
-    this.outgoing.clear();
+    this.packets = new PacketRegistry();
   }
   
-  public final void register(int id, Class<? extends Packet> packet)
+  public final PacketRegistryBuilder edit()
   {
-    registerIncoming(id, packet);
-    registerOutgoing(id, packet);
+    return new PacketRegistryBuilder(this.packets);
   }
   
-  public final void registerIncoming(int id, Class<? extends Packet> packet)
+  public final synchronized void register(PacketRegistryBuilder builder)
   {
-    this.incoming.put(Integer.valueOf(id), packet);
-    try
-    {
-      createIncomingPacket(id);
-    }
-    catch (IllegalStateException e)
-    {
-      this.incoming.remove(Integer.valueOf(id));
-      throw new IllegalArgumentException(e.getMessage(), e.getCause());
-    }
+    this.packets = builder.create();
+  }
+  
+  public final synchronized void register(int id, Class<? extends Packet> packet)
+  {
+    register(edit().register(id, packet));
+  }
+  
+  public final synchronized void registerIncoming(int id, Class<? extends Packet> packet)
+  {
+    register(edit().registerIncoming(id, packet));
   }
   
-  public final void registerOutgoing(int id, Class<? extends Packet> packet)
+  public final synchronized void registerOutgoing(int id, Class<? extends Packet> packet)
   {
-    this.outgoing.put(packet, Integer.valueOf(id));
+    register(edit().registerOutgoing(id, packet));
   }
   
   public final Packet createIncomingPacket(int id)
   {
-    if ((id < 0) || (!this.incoming.containsKey(Integer.valueOf(id))) || (this.incoming.get(Integer.valueOf(id)) == null)) {
-      throw new IllegalArgumentException("Invalid packet id: " + id);
-    }
-    Class<? extends Packet> packet = (Class)this.incoming.get(Integer.valueOf(id));
-    try
-    {
-      Constructor<? extends Packet> constructor = packet.getDeclaredConstructor(new Class[0]);
-      if (!constructor.isAccessible()) {
-        constructor.setAccessible(true);
-      }
-      return (Packet)constructor.newInstance(new Object[0]);
-    }
-    catch (NoSuchMethodError e)
-    {
-      throw new IllegalStateException("Packet \"" + id + ", " + packet.getName() + "\" does not have a no-params constructor for instantiation.");
-    }
-    catch (Exception e)
-    {
-      throw new IllegalStateException("Failed to instantiate packet \"" + id + ", " + packet.getName() + "\".", e);
-    }
+    return this.packets.createIncomingPacket(id);
+  }
+  
+  public final Class<? extends Packet> getIncomingPacket(int id)
+  {
+    return this.packets.getIncomingPacket(id);
+  }
+  
+  public final boolean hasOutgoingPacket(Class<? extends Packet> packet)
+  {
+    return this.packets.hasOutgoing(packet);
   }
   
   public final int getOutgoingId(Class<? extends Packet> packet)
   {
-    if ((!this.outgoing.containsKey(packet)) || (this.outgoing.get(packet) == null)) {
-      throw new IllegalArgumentException("Unregistered outgoing packet class: " + packet.getName());
-    }
-    return ((Integer)this.outgoing.get(packet)).intValue();
+    return this.packets.getOutgoingId(packet);
   }
 }
@@ -0,0 +1,127 @@
+package org.spacehq.packetlib.packet;
+
+import java.lang.reflect.Constructor;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class PacketRegistry
+{
+  private Class<? extends Packet>[] incoming;
+  private Constructor<? extends Packet>[] incomingConstructors;
+  private Map<Class<? extends Packet>, Integer> outgoing;
+  private boolean locked = false;
+  
+  public PacketRegistry()
+  {
+    this.incoming = new Class[0];
+    this.incomingConstructors = new Constructor[0];
+    this.outgoing = new IdentityHashMap();
+  }
+  
+  public PacketRegistry(PacketRegistry registry)
+  {
+    this.incoming = ((Class[])registry.incoming.clone());
+    this.incomingConstructors = ((Constructor[])registry.incomingConstructors.clone());
+    this.outgoing = new IdentityHashMap(registry.outgoing);
+  }
+  
+  public boolean isLocked()
+  {
+    return this.locked;
+  }
+  
+  public PacketRegistry lock()
+  {
+    this.locked = true;
+    return this;
+  }
+  
+  public void register(int id, Class<? extends Packet> packet)
+  {
+    registerIncoming(id, packet);
+    registerOutgoing(id, packet);
+  }
+  
+  public void registerIncoming(int id, Class<? extends Packet> packet)
+  {
+    if (this.locked) {
+      throw new IllegalStateException("Cannot register packets in a locked packet registry.");
+    }
+    if (id < 0) {
+      throw new IllegalArgumentException("Invalid packet id: " + id);
+    }
+    Constructor<? extends Packet> constructor;
+    try
+    {
+      constructor = packet.getDeclaredConstructor(new Class[0]);
+      if (!constructor.isAccessible()) {
+        constructor.setAccessible(true);
+      }
+      constructor.newInstance(new Object[0]);
+    }
+    catch (NoSuchMethodException e)
+    {
+      throw new IllegalArgumentException("Packet \"" + id + ", " + packet.getName() + "\" does not have a no-params constructor for instantiation.");
+    }
+    catch (Exception e)
+    {
+      throw new IllegalArgumentException("Failed to instantiate packet \"" + id + ", " + packet.getName() + "\".", e);
+    }
+    if (id >= this.incoming.length)
+    {
+      Class<? extends Packet>[] classes = new Class[id + 1];
+      System.arraycopy(this.incoming, 0, classes, 0, this.incoming.length);
+      this.incoming = classes;
+      Constructor<? extends Packet>[] constructors = new Constructor[id + 1];
+      System.arraycopy(this.incomingConstructors, 0, constructors, 0, this.incomingConstructors.length);
+      this.incomingConstructors = constructors;
+    }
+    this.incoming[id] = packet;
+    this.incomingConstructors[id] = constructor;
+  }
+  
+  public void registerOutgoing(int id, Class<? extends Packet> packet)
+  {
+    if (this.locked) {
+      throw new IllegalStateException("Cannot register packets in a locked packet registry.");
+    }
+    this.outgoing.put(packet, Integer.valueOf(id));
+  }
+  
+  public Packet createIncomingPacket(int id)
+  {
+    if ((id < 0) || (id >= this.incomingConstructors.length) || (this.incomingConstructors[id] == null)) {
+      throw new IllegalArgumentException("Invalid packet id: " + id);
+    }
+    try
+    {
+      return (Packet)this.incomingConstructors[id].newInstance(new Object[0]);
+    }
+    catch (Exception e)
+    {
+      throw new IllegalStateException("Failed to instantiate packet \"" + id + ", " + this.incoming[id].getName() + "\".", e);
+    }
+  }
+  
+  public Class<? extends Packet> getIncomingPacket(int id)
+  {
+    if ((id < 0) || (id >= this.incoming.length)) {
+      return null;
+    }
+    return this.incoming[id];
+  }
+  
+  public boolean hasOutgoing(Class<? extends Packet> packet)
+  {
+    return this.outgoing.containsKey(packet);
+  }
+  
+  public int getOutgoingId(Class<? extends Packet> packet)
+  {
+    Integer id = (Integer)this.outgoing.get(packet);
+    if (id == null) {
+      throw new IllegalArgumentException("Unregistered outgoing packet class: " + packet.getName());
+    }
+    return id.intValue();
+  }
+}
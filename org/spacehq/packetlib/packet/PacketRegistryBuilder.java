@@ -0,0 +1,49 @@
+package org.spacehq.packetlib.packet;
+
+public class PacketRegistryBuilder
+{
+  private PacketRegistry packets;
+  
+  public PacketRegistryBuilder()
+  {
+    this.packets = new PacketRegistry();
+  }
+  
+  public PacketRegistryBuilder(PacketRegistry packets)
+  {
+    this.packets = new PacketRegistry(packets);
+  }
+  
+  public PacketRegistryBuilder register(int id, Class<? extends Packet> packet)
+  {
+    getPackets().register(id, packet);
+    return this;
+  }
+  
+  public PacketRegistryBuilder registerIncoming(int id, Class<? extends Packet> packet)
+  {
+    getPackets().registerIncoming(id, packet);
+    return this;
+  }
+  
+  public PacketRegistryBuilder registerOutgoing(int id, Class<? extends Packet> packet)
+  {
+    getPackets().registerOutgoing(id, packet);
+    return this;
+  }
+  
+  public PacketRegistry create()
+  {
+    PacketRegistry packets = getPackets().lock();
+    this.packets = null;
+    return packets;
+  }
+  
+  private PacketRegistry getPackets()
+  {
+    if (this.packets == null) {
+      throw new IllegalStateException("Packet registry has already been created.");
+    }
+    return this.packets;
+  }
+}
@@ -0,0 +1,23 @@
+package org.spacehq.packetlib.tcp;
+
+import java.util.concurrent.Executor;
+import org.spacehq.packetlib.Session;
+
+public class InlinePacketDispatcher
+  implements PacketDispatcher
+{
+  private static final Executor INLINE = new Executor()
+  {
+    public void execute(Runnable task)
+    {
+      task.run();
+    }
+  };
+  
+  public Executor newSessionExecutor(Session session)
+  {
+    return INLINE;
+  }
+  
+  public void releaseSessionExecutor(Executor executor) {}
+}
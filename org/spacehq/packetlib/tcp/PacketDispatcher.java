@@ -0,0 +1,11 @@
+package org.spacehq.packetlib.tcp;
+
+import java.util.concurrent.Executor;
+import org.spacehq.packetlib.Session;
+
+public abstract interface PacketDispatcher
+{
+  public abstract Executor newSessionExecutor(Session paramSession);
+  
+  public abstract void releaseSessionExecutor(Executor paramExecutor);
+}
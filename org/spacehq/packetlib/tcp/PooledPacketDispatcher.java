@@ -0,0 +1,116 @@
+package org.spacehq.packetlib.tcp;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.spacehq.packetlib.Session;
+
+public class PooledPacketDispatcher
+  implements PacketDispatcher
+{
+  private ExecutorService pool;
+  
+  public PooledPacketDispatcher()
+  {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+  
+  public PooledPacketDispatcher(int threads)
+  {
+    this(Executors.newFixedThreadPool(threads));
+  }
+  
+  public PooledPacketDispatcher(ExecutorService pool)
+  {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool cannot be null.");
+    }
+    this.pool = pool;
+  }
+  
+  public ExecutorService getPool()
+  {
+    return this.pool;
+  }
+  
+  public Executor newSessionExecutor(Session session)
+  {
+    return new SerialExecutor(this.pool);
+  }
+  
+  public void releaseSessionExecutor(Executor executor)
+  {
+    ((SerialExecutor)executor).close();
+  }
+  
+  public void shutdown()
+  {
+    this.pool.shutdown();
+  }
+  
+  private static class SerialExecutor
+    implements Executor, Runnable
+  {
+    private static final int MAX_BATCH = 64;
+    private Executor pool;
+    private Queue<Runnable> tasks = new ArrayDeque();
+    private boolean running = false;
+    private boolean closed = false;
+    
+    public SerialExecutor(Executor pool)
+    {
+      this.pool = pool;
+    }
+    
+    public void execute(Runnable task)
+    {
+      synchronized (this)
+      {
+        if (this.closed) {
+          return;
+        }
+        this.tasks.add(task);
+        if (this.running) {
+          return;
+        }
+        this.running = true;
+      }
+      this.pool.execute(this);
+    }
+    
+    public void run()
+    {
+      for (int count = 0;; count++)
+      {
+        if (count == MAX_BATCH)
+        {
+          this.pool.execute(this);
+          return;
+        }
+        Runnable task;
+        synchronized (this)
+        {
+          task = (Runnable)this.tasks.poll();
+          if ((task == null) || (this.closed))
+          {
+            this.tasks.clear();
+            this.running = false;
+            return;
+          }
+        }
+        task.run();
+      }
+    }
+    
+    public void close()
+    {
+      synchronized (this)
+      {
+        this.closed = true;
+        this.tasks.clear();
+      }
+    }
+  }
+}
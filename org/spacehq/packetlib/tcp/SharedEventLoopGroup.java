@@ -0,0 +1,88 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SharedEventLoopGroup
+{
+  private TcpTransport transport;
+  private EventLoopGroup group;
+  private AtomicInteger refCount = new AtomicInteger(1);
+  
+  public SharedEventLoopGroup()
+  {
+    this(0);
+  }
+  
+  public SharedEventLoopGroup(int threads)
+  {
+    this(TcpTransport.getDefault(), threads);
+  }
+  
+  public SharedEventLoopGroup(TcpTransport transport, int threads)
+  {
+    this(transport, transport.newEventLoopGroup(threads));
+  }
+  
+  public SharedEventLoopGroup(TcpTransport transport, EventLoopGroup group)
+  {
+    if ((transport == null) || (group == null)) {
+      throw new IllegalArgumentException("Transport and event loop group cannot be null.");
+    }
+    this.transport = transport;
+    this.group = group;
+  }
+  
+  public TcpTransport getTransport()
+  {
+    return this.transport;
+  }
+  
+  public EventLoopGroup getGroup()
+  {
+    return this.group;
+  }
+  
+  public int refCount()
+  {
+    return this.refCount.get();
+  }
+  
+  public EventLoopGroup retain()
+  {
+    for (;;)
+    {
+      int count = this.refCount.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Shared event loop group has already been shut down.");
+      }
+      if (this.refCount.compareAndSet(count, count + 1)) {
+        return this.group;
+      }
+    }
+  }
+  
+  public Future<?> release()
+  {
+    for (;;)
+    {
+      int count = this.refCount.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Shared event loop group has already been shut down.");
+      }
+      if (this.refCount.compareAndSet(count, count - 1))
+      {
+        if (count == 1) {
+          return this.group.shutdownGracefully();
+        }
+        return null;
+      }
+    }
+  }
+  
+  public boolean isShutdown()
+  {
+    return this.refCount.get() <= 0;
+  }
+}
@@ -4,19 +4,16 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.oio.OioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import java.net.InetSocketAddress;
 import java.net.Proxy;
-import java.util.Hashtable;
-import javax.naming.directory.Attribute;
-import javax.naming.directory.Attributes;
-import javax.naming.directory.InitialDirContext;
 import org.spacehq.packetlib.Client;
 import org.spacehq.packetlib.packet.PacketProtocol;
 
@@ -25,13 +22,49 @@ public class TcpClientSession
 {
   private Client client;
   private Proxy proxy;
+  private TcpTransport transport;
+  private SharedEventLoopGroup sharedGroup;
   private EventLoopGroup group;
+  private boolean sharingGroup = false;
+  private TcpSrvResolver srvResolver;
   
   public TcpClientSession(String host, int port, PacketProtocol protocol, Client client, Proxy proxy)
+  {
+    this(host, port, protocol, client, proxy, TcpTransport.getDefault(), null);
+  }
+  
+  public TcpClientSession(String host, int port, PacketProtocol protocol, Client client, Proxy proxy, SharedEventLoopGroup sharedGroup)
+  {
+    this(host, port, protocol, client, proxy, sharedGroup != null ? sharedGroup.getTransport() : TcpTransport.getDefault(), sharedGroup);
+  }
+  
+  public TcpClientSession(String host, int port, PacketProtocol protocol, Client client, Proxy proxy, TcpTransport transport, SharedEventLoopGroup sharedGroup)
   {
     super(host, port, protocol);
     this.client = client;
     this.proxy = proxy;
+    this.transport = sharedGroup != null ? sharedGroup.getTransport() : transport;
+    this.sharedGroup = sharedGroup;
+  }
+  
+  public TcpTransport getTransport()
+  {
+    return this.transport;
+  }
+  
+  public SharedEventLoopGroup getSharedGroup()
+  {
+    return this.sharedGroup;
+  }
+  
+  public TcpSrvResolver getSrvResolver()
+  {
+    return this.srvResolver != null ? this.srvResolver : TcpSrvResolver.getDefault();
+  }
+  
+  public void setSrvResolver(TcpSrvResolver resolver)
+  {
+    this.srvResolver = resolver;
   }
   
   public void connect(boolean wait)
@@ -45,15 +78,21 @@ public class TcpClientSession
     try
     {
       final Bootstrap bootstrap = new Bootstrap();
-      if (this.proxy != null)
+      if ((this.proxy != null) && (this.proxy.type() != Proxy.Type.DIRECT))
       {
         this.group = new OioEventLoopGroup();
         bootstrap.channelFactory(new ProxyOioChannelFactory(this.proxy));
       }
+      else if (this.sharedGroup != null)
+      {
+        this.group = this.sharedGroup.retain();
+        this.sharingGroup = true;
+        bootstrap.channel(this.transport.getSocketChannel());
+      }
       else
       {
-        this.group = new NioEventLoopGroup();
-        bootstrap.channel(NioSocketChannel.class);
+        this.group = this.transport.newEventLoopGroup(0);
+        bootstrap.channel(this.transport.getSocketChannel());
       }
       ((Bootstrap)((Bootstrap)bootstrap.handler(new ChannelInitializer()
       {
@@ -64,14 +103,14 @@ public class TcpClientSession
           
           channel.config().setOption(ChannelOption.IP_TOS, Integer.valueOf(24));
           channel.config().setOption(ChannelOption.TCP_NODELAY, Boolean.valueOf(false));
+          TcpClientSession.this.transport.configure(channel);
           
           ChannelPipeline pipeline = channel.pipeline();
           
           TcpClientSession.this.refreshReadTimeoutHandler(channel);
           TcpClientSession.this.refreshWriteTimeoutHandler(channel);
           
-          pipeline.addLast("encryption", new TcpPacketEncryptor(TcpClientSession.this));
-          pipeline.addLast("sizer", new TcpPacketSizer(TcpClientSession.this));
+          pipeline.addLast("frame", new TcpFrameCodec(TcpClientSession.this));
           pipeline.addLast("codec", new TcpPacketCodec(TcpClientSession.this));
           pipeline.addLast("manager", TcpClientSession.this);
         }
@@ -79,48 +118,43 @@ public class TcpClientSession
       
         )).group(this.group)).option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.valueOf(getConnectTimeout() * 1000));
       
-      Runnable connectTask = new Runnable()
+      String host = getHost();
+      int port = getPort();
+      getSrvResolver().resolve(getPacketProtocol().getSRVRecordPrefix(), host, port).addListener(new FutureListener<InetSocketAddress>()
       {
-        public void run()
+        public void operationComplete(Future<InetSocketAddress> future)
+          throws Exception
         {
+          if (TcpClientSession.this.disconnected) {
+            return;
+          }
+          if (!future.isSuccess())
+          {
+            TcpClientSession.this.exceptionCaught(null, future.cause());
+            return;
+          }
           try
           {
-            String host = TcpClientSession.this.getHost();
-            int port = TcpClientSession.this.getPort();
-            try
+            bootstrap.remoteAddress((InetSocketAddress)future.getNow());
+            bootstrap.connect().addListener(new ChannelFutureListener()
             {
-              Hashtable<String, String> environment = new Hashtable();
-              environment.put("java.naming.factory.initial", "com.sun.jndi.dns.DnsContextFactory");
-              environment.put("java.naming.provider.url", "dns:");
-              
-              String[] result = new InitialDirContext(environment).getAttributes(TcpClientSession.this.getPacketProtocol().getSRVRecordPrefix() + "._tcp." + host, new String[] { "SRV" }).get("srv").get().toString().split(" ", 4);
-              host = result[3];
-              port = Integer.parseInt(result[2]);
-            }
-            catch (Throwable localThrowable1) {}
-            bootstrap.remoteAddress(host, port);
-            
-            ChannelFuture future = bootstrap.connect().sync();
-            if (future.isSuccess()) {
-              while ((!TcpClientSession.this.isConnected()) && (!TcpClientSession.this.disconnected)) {
-                try
-                {
-                  Thread.sleep(5L);
+              public void operationComplete(ChannelFuture future)
+                throws Exception
+              {
+                if (!future.isSuccess()) {
+                  TcpClientSession.this.exceptionCaught(null, future.cause());
                 }
-                catch (InterruptedException localInterruptedException) {}
               }
-            }
+            });
           }
           catch (Throwable t)
           {
             TcpClientSession.this.exceptionCaught(null, t);
           }
         }
-      };
+      });
       if (wait) {
-        connectTask.run();
-      } else {
-        new Thread(connectTask).start();
+        getConnectFuture().awaitUninterruptibly();
       }
     }
     catch (Throwable t)
@@ -134,8 +168,8 @@ public class TcpClientSession
     super.disconnect(reason, cause, wait);
     if (this.group != null)
     {
-      Future<?> future = this.group.shutdownGracefully();
-      if (wait) {
+      Future<?> future = this.sharingGroup ? this.sharedGroup.release() : this.group.shutdownGracefully();
+      if ((wait) && (future != null)) {
         try
         {
           future.await();
@@ -143,6 +177,7 @@ public class TcpClientSession
         catch (InterruptedException localInterruptedException) {}
       }
       this.group = null;
+      this.sharingGroup = false;
     }
   }
 }
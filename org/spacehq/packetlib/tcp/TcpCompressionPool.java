@@ -0,0 +1,209 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+public class TcpCompressionPool
+{
+  private static final TcpCompressionPool DEFAULT = new TcpCompressionPool(-1, 0);
+  private static final int CHUNK_SIZE = 8192;
+  private static final int MAX_SCRATCH_SIZE = 65536;
+  private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal();
+  private static final ThreadLocal<byte[]> CHUNK = new ThreadLocal();
+  private int level;
+  private int strategy;
+  private int maxIdle;
+  private Queue<Deflater> deflaters = new ConcurrentLinkedQueue();
+  private Queue<Inflater> inflaters = new ConcurrentLinkedQueue();
+  private AtomicInteger idleDeflaters = new AtomicInteger();
+  private AtomicInteger idleInflaters = new AtomicInteger();
+  
+  public TcpCompressionPool()
+  {
+    this(-1, 0);
+  }
+  
+  public TcpCompressionPool(int level, int strategy)
+  {
+    this(level, strategy, Runtime.getRuntime().availableProcessors() * 2);
+  }
+  
+  public TcpCompressionPool(int level, int strategy, int maxIdle)
+  {
+    if ((level < -1) || (level > 9)) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    if ((strategy != 0) && (strategy != 1) && (strategy != 2)) {
+      throw new IllegalArgumentException("Invalid compression strategy: " + strategy);
+    }
+    this.level = level;
+    this.strategy = strategy;
+    this.maxIdle = maxIdle;
+  }
+  
+  public static TcpCompressionPool getDefault()
+  {
+    return DEFAULT;
+  }
+  
+  public int getLevel()
+  {
+    return this.level;
+  }
+  
+  public int getStrategy()
+  {
+    return this.strategy;
+  }
+  
+  public void deflate(ByteBuf in, ByteBuf out)
+  {
+    Deflater deflater = (Deflater)this.deflaters.poll();
+    if (deflater != null)
+    {
+      this.idleDeflaters.decrementAndGet();
+    }
+    else
+    {
+      deflater = new Deflater(this.level);
+      deflater.setStrategy(this.strategy);
+    }
+    try
+    {
+      int readable = in.readableBytes();
+      if (in.hasArray())
+      {
+        deflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readable);
+      }
+      else
+      {
+        byte[] bytes = getScratch(readable);
+        in.getBytes(in.readerIndex(), bytes, 0, readable);
+        deflater.setInput(bytes, 0, readable);
+      }
+      in.skipBytes(readable);
+      deflater.finish();
+      byte[] chunk = out.hasArray() ? null : getChunk();
+      while (!deflater.finished())
+      {
+        out.ensureWritable(256);
+        if (chunk == null)
+        {
+          int length = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+          out.writerIndex(out.writerIndex() + length);
+        }
+        else
+        {
+          int length = deflater.deflate(chunk);
+          out.writeBytes(chunk, 0, length);
+        }
+      }
+    }
+    finally
+    {
+      deflater.reset();
+      if (this.idleDeflaters.incrementAndGet() <= this.maxIdle)
+      {
+        this.deflaters.offer(deflater);
+      }
+      else
+      {
+        this.idleDeflaters.decrementAndGet();
+        deflater.end();
+      }
+    }
+  }
+  
+  public void inflate(ByteBuf in, ByteBuf out, int size)
+    throws DataFormatException
+  {
+    Inflater inflater = (Inflater)this.inflaters.poll();
+    if (inflater != null) {
+      this.idleInflaters.decrementAndGet();
+    } else {
+      inflater = new Inflater();
+    }
+    try
+    {
+      int readable = in.readableBytes();
+      if (in.hasArray())
+      {
+        inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), readable);
+      }
+      else
+      {
+        byte[] bytes = getScratch(readable);
+        in.getBytes(in.readerIndex(), bytes, 0, readable);
+        inflater.setInput(bytes, 0, readable);
+      }
+      in.skipBytes(readable);
+      out.ensureWritable(size);
+      int length;
+      if (out.hasArray())
+      {
+        length = inflater.inflate(out.array(), out.arrayOffset() + out.writerIndex(), size);
+        out.writerIndex(out.writerIndex() + length);
+      }
+      else
+      {
+        byte[] chunk = getChunk();
+        length = 0;
+        while (length < size)
+        {
+          int inflated = inflater.inflate(chunk, 0, Math.min(chunk.length, size - length));
+          if (inflated == 0) {
+            break;
+          }
+          out.writeBytes(chunk, 0, inflated);
+          length += inflated;
+        }
+      }
+      if (length != size) {
+        throw new DataFormatException("Expected " + size + " inflated bytes but got " + length + ".");
+      }
+    }
+    finally
+    {
+      inflater.reset();
+      if (this.idleInflaters.incrementAndGet() <= this.maxIdle)
+      {
+        this.inflaters.offer(inflater);
+      }
+      else
+      {
+        this.idleInflaters.decrementAndGet();
+        inflater.end();
+      }
+    }
+  }
+  
+  private static byte[] getChunk()
+  {
+    byte[] chunk = (byte[])CHUNK.get();
+    if (chunk == null)
+    {
+      chunk = new byte[8192];
+      CHUNK.set(chunk);
+    }
+    return chunk;
+  }
+  
+  private static byte[] getScratch(int length)
+  {
+    if (length > MAX_SCRATCH_SIZE) {
+      return new byte[length];
+    }
+    byte[] scratch = (byte[])SCRATCH.get();
+    if ((scratch == null) || (scratch.length < length))
+    {
+      scratch = new byte[Math.max(length, 256)];
+      SCRATCH.set(scratch);
+    }
+    return scratch;
+  }
+}
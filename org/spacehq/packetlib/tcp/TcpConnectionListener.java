@@ -1,6 +1,7 @@
 package org.spacehq.packetlib.tcp;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
@@ -9,14 +10,17 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import java.io.PrintStream;
 import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.spacehq.packetlib.ConnectionListener;
 import org.spacehq.packetlib.Server;
+import org.spacehq.packetlib.Session;
+import org.spacehq.packetlib.packet.Packet;
 import org.spacehq.packetlib.packet.PacketProtocol;
 
 public class TcpConnectionListener
@@ -25,14 +29,101 @@ public class TcpConnectionListener
   private String host;
   private int port;
   private Server server;
+  private TcpTransport transport;
+  private PacketDispatcher packetDispatcher;
+  private TcpCompressionPool compressionPool;
+  private int writeBufferLowWaterMark = 0;
+  private int writeBufferHighWaterMark = 0;
+  private TcpWritePolicy writePolicy;
+  private int inboundQueueLowWaterMark = 0;
+  private int inboundQueueHighWaterMark = 0;
   private EventLoopGroup group;
   private Channel channel;
   
   public TcpConnectionListener(String host, int port, Server server)
+  {
+    this(host, port, server, TcpTransport.getDefault());
+  }
+  
+  public TcpConnectionListener(String host, int port, Server server, TcpTransport transport)
   {
     this.host = host;
     this.port = port;
     this.server = server;
+    this.transport = transport;
+  }
+  
+  public TcpTransport getTransport()
+  {
+    return this.transport;
+  }
+  
+  public PacketDispatcher getPacketDispatcher()
+  {
+    return this.packetDispatcher;
+  }
+  
+  public void setPacketDispatcher(PacketDispatcher dispatcher)
+  {
+    this.packetDispatcher = dispatcher;
+  }
+  
+  public TcpCompressionPool getCompressionPool()
+  {
+    return this.compressionPool;
+  }
+  
+  public void setCompressionPool(TcpCompressionPool pool)
+  {
+    this.compressionPool = pool;
+  }
+  
+  public int getWriteBufferLowWaterMark()
+  {
+    return this.writeBufferLowWaterMark;
+  }
+  
+  public int getWriteBufferHighWaterMark()
+  {
+    return this.writeBufferHighWaterMark;
+  }
+  
+  public void setWriteBufferWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid write buffer water marks: low " + low + ", high " + high + ".");
+    }
+    this.writeBufferLowWaterMark = low;
+    this.writeBufferHighWaterMark = high;
+  }
+  
+  public TcpWritePolicy getWritePolicy()
+  {
+    return this.writePolicy;
+  }
+  
+  public void setWritePolicy(TcpWritePolicy policy)
+  {
+    this.writePolicy = policy;
+  }
+  
+  public int getInboundQueueLowWaterMark()
+  {
+    return this.inboundQueueLowWaterMark;
+  }
+  
+  public int getInboundQueueHighWaterMark()
+  {
+    return this.inboundQueueHighWaterMark;
+  }
+  
+  public void setInboundQueueWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high <= 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid inbound queue water marks: low " + low + ", high " + high + ".");
+    }
+    this.inboundQueueLowWaterMark = low;
+    this.inboundQueueHighWaterMark = high;
   }
   
   public String getHost()
@@ -65,9 +156,9 @@ public class TcpConnectionListener
     if ((this.group != null) || (this.channel != null)) {
       return;
     }
-    this.group = new NioEventLoopGroup();
+    this.group = this.transport.newEventLoopGroup(0);
     
-    ChannelFuture future = ((ServerBootstrap)((ServerBootstrap)new ServerBootstrap().channel(NioServerSocketChannel.class)).childHandler(new ChannelInitializer()
+    ChannelFuture future = ((ServerBootstrap)((ServerBootstrap)new ServerBootstrap().channel(this.transport.getServerSocketChannel())).childHandler(new ChannelInitializer()
     {
       public void initChannel(Channel channel)
         throws Exception
@@ -76,18 +167,33 @@ public class TcpConnectionListener
         PacketProtocol protocol = TcpConnectionListener.this.server.createPacketProtocol();
         
         TcpSession session = new TcpServerSession(address.getHostName(), address.getPort(), protocol, TcpConnectionListener.this.server);
+        if (TcpConnectionListener.this.packetDispatcher != null) {
+          session.setPacketDispatcher(TcpConnectionListener.this.packetDispatcher);
+        }
+        if (TcpConnectionListener.this.compressionPool != null) {
+          session.setCompressionPool(TcpConnectionListener.this.compressionPool);
+        }
+        if (TcpConnectionListener.this.writeBufferHighWaterMark > 0) {
+          session.setWriteBufferWaterMarks(TcpConnectionListener.this.writeBufferLowWaterMark, TcpConnectionListener.this.writeBufferHighWaterMark);
+        }
+        if (TcpConnectionListener.this.writePolicy != null) {
+          session.setWritePolicy(TcpConnectionListener.this.writePolicy);
+        }
+        if (TcpConnectionListener.this.inboundQueueHighWaterMark > 0) {
+          session.setInboundQueueWaterMarks(TcpConnectionListener.this.inboundQueueLowWaterMark, TcpConnectionListener.this.inboundQueueHighWaterMark);
+        }
         session.getPacketProtocol().newServerSession(TcpConnectionListener.this.server, session);
         
         channel.config().setOption(ChannelOption.IP_TOS, Integer.valueOf(24));
         channel.config().setOption(ChannelOption.TCP_NODELAY, Boolean.valueOf(false));
+        TcpConnectionListener.this.transport.configure(channel);
         
         ChannelPipeline pipeline = channel.pipeline();
         
         session.refreshReadTimeoutHandler(channel);
         session.refreshWriteTimeoutHandler(channel);
         
-        pipeline.addLast("encryption", new TcpPacketEncryptor(session));
-        pipeline.addLast("sizer", new TcpPacketSizer(session));
+        pipeline.addLast("frame", new TcpFrameCodec(session));
         pipeline.addLast("codec", new TcpPacketCodec(session));
         pipeline.addLast("manager", session);
       }
@@ -132,6 +238,50 @@ public class TcpConnectionListener
     }
   }
   
+  public void broadcast(Packet packet, List<Session> sessions)
+  {
+    Map<Long, ByteBuf> frames = new HashMap();
+    try
+    {
+      for (Session session : sessions) {
+        if (session.getPacketProtocol().hasOutgoingPacket(packet.getClass())) {
+          if ((!(session instanceof TcpSession)) || (!((TcpSession)session).canSendFrame(packet)))
+          {
+            session.send(packet);
+          }
+          else
+          {
+            TcpSession tcp = (TcpSession)session;
+            Long key = Long.valueOf((long)tcp.getPacketProtocol().getOutgoingId(packet.getClass()) << 32 | tcp.getCompressionThreshold() & 0xFFFFFFFFL);
+            ByteBuf frame = (ByteBuf)frames.get(key);
+            if (frame == null)
+            {
+              try
+              {
+                frame = tcp.encodeFrame(packet);
+              }
+              catch (Exception e)
+              {
+                if (!tcp.isConnected()) {
+                  continue;
+                }
+                throw new IllegalStateException("Failed to encode broadcast packet " + packet.getClass().getName() + ".", e);
+              }
+              frames.put(key, frame);
+            }
+            tcp.sendFrame(packet, frame);
+          }
+        }
+      }
+    }
+    finally
+    {
+      for (ByteBuf frame : frames.values()) {
+        frame.release();
+      }
+    }
+  }
+  
   public void close()
   {
     close(false);
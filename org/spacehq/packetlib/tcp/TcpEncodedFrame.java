@@ -0,0 +1,13 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+public class TcpEncodedFrame
+  extends DefaultByteBufHolder
+{
+  public TcpEncodedFrame(ByteBuf frame)
+  {
+    super(frame);
+  }
+}
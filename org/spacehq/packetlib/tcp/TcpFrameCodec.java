@@ -0,0 +1,284 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.ByteToMessageCodec;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.DecoderException;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import org.spacehq.packetlib.Session;
+import org.spacehq.packetlib.crypt.PacketEncryption;
+import org.spacehq.packetlib.packet.PacketHeader;
+import org.spacehq.packetlib.tcp.io.ByteBufNetInput;
+import org.spacehq.packetlib.tcp.io.ByteBufNetOutput;
+
+public class TcpFrameCodec
+  extends ByteToMessageCodec<ByteBuf>
+{
+  private static final int MAX_COMPRESSED_SIZE = 2097152;
+  private Session session;
+  private byte[] cryptArray = new byte[0];
+  private int decryptedPending = 0;
+  
+  public TcpFrameCodec(Session session)
+  {
+    this.session = session;
+  }
+  
+  private TcpCompressionPool getCompressionPool()
+  {
+    if ((this.session instanceof TcpSession)) {
+      return ((TcpSession)this.session).getCompressionPool();
+    }
+    return TcpCompressionPool.getDefault();
+  }
+  
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+    throws Exception
+  {
+    if ((msg instanceof ByteBuf))
+    {
+      ByteBuf in = (ByteBuf)msg;
+      int readable = in.readableBytes();
+      ByteBuf out = this.session.getPacketProtocol().getEncryption() != null ? ctx.alloc().heapBuffer(readable + 5) : ctx.alloc().buffer(readable + 5);
+      try
+      {
+        encode(ctx, in, out);
+      }
+      catch (Exception e)
+      {
+        out.release();
+        throw e;
+      }
+      finally
+      {
+        in.release();
+      }
+      ctx.write(out, promise);
+      return;
+    }
+    if (!(msg instanceof TcpEncodedFrame))
+    {
+      super.write(ctx, msg, promise);
+      return;
+    }
+    ByteBuf frame = ((TcpEncodedFrame)msg).content();
+    PacketEncryption encryption = this.session.getPacketProtocol().getEncryption();
+    if (encryption == null)
+    {
+      ctx.write(frame, promise);
+      return;
+    }
+    ByteBuf out = ctx.alloc().heapBuffer(frame.readableBytes());
+    try
+    {
+      out.writeBytes(frame);
+      crypt(encryption, out, out.readerIndex(), out.readableBytes(), true);
+    }
+    catch (Exception e)
+    {
+      out.release();
+      throw e;
+    }
+    finally
+    {
+      frame.release();
+    }
+    ctx.write(out, promise);
+  }
+  
+  public void channelRead(ChannelHandlerContext ctx, Object msg)
+    throws Exception
+  {
+    if (((msg instanceof ByteBuf)) && (!((ByteBuf)msg).hasArray()) && (this.session.getPacketProtocol().getEncryption() != null))
+    {
+      ByteBuf in = (ByteBuf)msg;
+      ByteBuf copy = ctx.alloc().heapBuffer(in.readableBytes());
+      try
+      {
+        copy.writeBytes(in);
+      }
+      catch (RuntimeException e)
+      {
+        copy.release();
+        throw e;
+      }
+      finally
+      {
+        in.release();
+      }
+      msg = copy;
+    }
+    super.channelRead(ctx, msg);
+  }
+  
+  public void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out)
+    throws Exception
+  {
+    int start = out.writerIndex();
+    writeFrame(ctx.alloc(), in, out);
+    PacketEncryption encryption = this.session.getPacketProtocol().getEncryption();
+    if (encryption != null) {
+      crypt(encryption, out, start, out.writerIndex() - start, true);
+    }
+  }
+  
+  public void writeFrame(ByteBufAllocator alloc, ByteBuf in, ByteBuf out)
+    throws Exception
+  {
+    PacketHeader header = this.session.getPacketProtocol().getPacketHeader();
+    int threshold = this.session.getCompressionThreshold();
+    int readable = in.readableBytes();
+    if (threshold < 0)
+    {
+      out.ensureWritable(header.getLengthSize(readable) + readable);
+      header.writeLength(new ByteBufNetOutput(out), readable);
+      out.writeBytes(in);
+    }
+    else if (readable < threshold)
+    {
+      out.ensureWritable(header.getLengthSize(readable + 1) + readable + 1);
+      ByteBufNetOutput output = new ByteBufNetOutput(out);
+      header.writeLength(output, readable + 1);
+      output.writeVarInt(0);
+      out.writeBytes(in);
+    }
+    else
+    {
+      ByteBuf body = alloc.heapBuffer(readable + 5);
+      try
+      {
+        new ByteBufNetOutput(body).writeVarInt(readable);
+        getCompressionPool().deflate(in, body);
+        int length = body.readableBytes();
+        out.ensureWritable(header.getLengthSize(length) + length);
+        header.writeLength(new ByteBufNetOutput(out), length);
+        out.writeBytes(body);
+      }
+      finally
+      {
+        body.release();
+      }
+    }
+  }
+  
+  protected void decode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> out)
+    throws Exception
+  {
+    while ((buf.isReadable()) && (!ctx.isRemoved()))
+    {
+      PacketEncryption encryption = this.session.getPacketProtocol().getEncryption();
+      int decrypted = buf.readerIndex() + this.decryptedPending;
+      if ((encryption != null) && (decrypted < buf.writerIndex())) {
+        crypt(encryption, buf, decrypted, buf.writerIndex() - decrypted, false);
+      }
+      ByteBuf frame;
+      try
+      {
+        frame = readFrame(buf);
+      }
+      finally
+      {
+        this.decryptedPending = (encryption != null ? buf.readableBytes() : 0);
+      }
+      if (frame == null) {
+        return;
+      }
+      ctx.fireChannelRead(decompress(ctx, frame));
+    }
+  }
+  
+  private ByteBuf readFrame(ByteBuf buf)
+    throws Exception
+  {
+    PacketHeader header = this.session.getPacketProtocol().getPacketHeader();
+    int size = header.getLengthSize();
+    if (size <= 0) {
+      return buf.readSlice(buf.readableBytes()).retain();
+    }
+    int start = buf.readerIndex();
+    int available = buf.readableBytes();
+    for (int index = 0; index < size; index++)
+    {
+      if (index >= available) {
+        return null;
+      }
+      if (((header.isLengthVariable()) && (buf.getByte(start + index) >= 0)) || (index == size - 1))
+      {
+        int length = header.readLength(new ByteBufNetInput(buf), available - index - 1);
+        buf.readerIndex(start + index + 1);
+        if (buf.readableBytes() < length)
+        {
+          buf.readerIndex(start);
+          return null;
+        }
+        return buf.readSlice(length).retain();
+      }
+    }
+    throw new CorruptedFrameException("Length is too long.");
+  }
+  
+  private ByteBuf decompress(ChannelHandlerContext ctx, ByteBuf frame)
+    throws Exception
+  {
+    int threshold = this.session.getCompressionThreshold();
+    if ((threshold < 0) || (!frame.isReadable())) {
+      return frame;
+    }
+    try
+    {
+      int size = new ByteBufNetInput(frame).readVarInt();
+      if (size == 0) {
+        return frame.retain();
+      }
+      if (size < threshold) {
+        throw new DecoderException("Badly compressed packet: size of " + size + " is below threshold of " + threshold + ".");
+      }
+      if (size > 2097152) {
+        throw new DecoderException("Badly compressed packet: size of " + size + " is larger than protocol maximum of " + 2097152 + ".");
+      }
+      ByteBuf result = ctx.alloc().heapBuffer(size);
+      try
+      {
+        getCompressionPool().inflate(frame, result, size);
+      }
+      catch (DataFormatException e)
+      {
+        result.release();
+        throw new DecoderException("Badly compressed packet: " + e.getMessage(), e);
+      }
+      return result;
+    }
+    finally
+    {
+      frame.release();
+    }
+  }
+  
+  private void crypt(PacketEncryption encryption, ByteBuf buf, int index, int length, boolean encrypt)
+    throws Exception
+  {
+    int result;
+    if (buf.hasArray())
+    {
+      byte[] array = buf.array();
+      int offset = buf.arrayOffset() + index;
+      result = encrypt ? encryption.encrypt(array, offset, length, array, offset) : encryption.decrypt(array, offset, length, array, offset);
+    }
+    else
+    {
+      if (this.cryptArray.length < length) {
+        this.cryptArray = new byte[length];
+      }
+      buf.getBytes(index, this.cryptArray, 0, length);
+      result = encrypt ? encryption.encrypt(this.cryptArray, 0, length, this.cryptArray, 0) : encryption.decrypt(this.cryptArray, 0, length, this.cryptArray, 0);
+      buf.setBytes(index, this.cryptArray, 0, result);
+    }
+    if (result != length) {
+      throw new IllegalStateException("Frame codec requires a length-preserving packet encryption.");
+    }
+  }
+}
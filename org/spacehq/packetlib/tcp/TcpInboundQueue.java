@@ -0,0 +1,73 @@
+package org.spacehq.packetlib.tcp;
+
+import org.spacehq.packetlib.packet.Packet;
+
+public class TcpInboundQueue
+{
+  private Packet[] packets;
+  private int head = 0;
+  private int size = 0;
+  private int peak = 0;
+  
+  public TcpInboundQueue(int capacity)
+  {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Invalid inbound queue capacity: " + capacity);
+    }
+    this.packets = new Packet[capacity];
+  }
+  
+  public synchronized int size()
+  {
+    return this.size;
+  }
+  
+  public synchronized int getPeak()
+  {
+    return this.peak;
+  }
+  
+  public synchronized int getCapacity()
+  {
+    return this.packets.length;
+  }
+  
+  public synchronized int offer(Packet packet)
+  {
+    if (this.size == this.packets.length)
+    {
+      Packet[] packets = new Packet[this.packets.length * 2];
+      int tail = this.packets.length - this.head;
+      System.arraycopy(this.packets, this.head, packets, 0, tail);
+      System.arraycopy(this.packets, 0, packets, tail, this.head);
+      this.packets = packets;
+      this.head = 0;
+    }
+    this.packets[((this.head + this.size) % this.packets.length)] = packet;
+    this.size += 1;
+    if (this.size > this.peak) {
+      this.peak = this.size;
+    }
+    return this.size;
+  }
+  
+  public synchronized Packet poll()
+  {
+    if (this.size == 0) {
+      return null;
+    }
+    Packet packet = this.packets[this.head];
+    this.packets[this.head] = null;
+    this.head = ((this.head + 1) % this.packets.length);
+    this.size -= 1;
+    return packet;
+  }
+  
+  public synchronized void clear()
+  {
+    while (this.size > 0) {
+      poll();
+    }
+    this.head = 0;
+  }
+}
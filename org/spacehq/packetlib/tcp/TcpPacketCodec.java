@@ -43,6 +43,12 @@ public class TcpPacketCodec
       buf.readerIndex(initial);
       return;
     }
+    Class<? extends Packet> type = this.session.getPacketProtocol().getIncomingPacket(id);
+    if ((type != null) && (!this.session.isInterested(type)))
+    {
+      buf.skipBytes(buf.readableBytes());
+      return;
+    }
     Packet packet = this.session.getPacketProtocol().createIncomingPacket(id);
     packet.read(in);
     if (buf.readableBytes() > 0) {
@@ -1,13 +1,11 @@
 package org.spacehq.packetlib.tcp;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageCodec;
 import io.netty.handler.codec.DecoderException;
 import java.util.List;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
+import java.util.zip.DataFormatException;
 import org.spacehq.packetlib.Session;
 import org.spacehq.packetlib.tcp.io.ByteBufNetInput;
 import org.spacehq.packetlib.tcp.io.ByteBufNetOutput;
@@ -17,15 +15,20 @@ public class TcpPacketCompression
 {
   private static final int MAX_COMPRESSED_SIZE = 2097152;
   private Session session;
-  private Deflater deflater = new Deflater();
-  private Inflater inflater = new Inflater();
-  private byte[] buf = new byte[' '];
   
   public TcpPacketCompression(Session session)
   {
     this.session = session;
   }
   
+  private TcpCompressionPool getCompressionPool()
+  {
+    if ((this.session instanceof TcpSession)) {
+      return ((TcpSession)this.session).getCompressionPool();
+    }
+    return TcpCompressionPool.getDefault();
+  }
+  
   public void encode(ChannelHandlerContext ctx, ByteBuf in, ByteBuf out)
     throws Exception
   {
@@ -38,17 +41,8 @@ public class TcpPacketCompression
     }
     else
     {
-      byte[] bytes = new byte[readable];
-      in.readBytes(bytes);
-      output.writeVarInt(bytes.length);
-      this.deflater.setInput(bytes, 0, readable);
-      this.deflater.finish();
-      while (!this.deflater.finished())
-      {
-        int length = this.deflater.deflate(this.buf);
-        output.writeBytes(this.buf, length);
-      }
-      this.deflater.reset();
+      output.writeVarInt(readable);
+      getCompressionPool().deflate(in, out);
     }
   }
   
@@ -71,13 +65,17 @@ public class TcpPacketCompression
         if (size > 2097152) {
           throw new DecoderException("Badly compressed packet: size of " + size + " is larger than protocol maximum of " + 2097152 + ".");
         }
-        byte[] bytes = new byte[buf.readableBytes()];
-        in.readBytes(bytes);
-        this.inflater.setInput(bytes);
-        byte[] inflated = new byte[size];
-        this.inflater.inflate(inflated);
-        out.add(Unpooled.wrappedBuffer(inflated));
-        this.inflater.reset();
+        ByteBuf inflated = ctx.alloc().heapBuffer(size);
+        try
+        {
+          getCompressionPool().inflate(buf, inflated, size);
+        }
+        catch (DataFormatException e)
+        {
+          inflated.release();
+          throw new DecoderException("Badly compressed packet: " + e.getMessage(), e);
+        }
+        out.add(inflated);
       }
     }
   }
@@ -2,6 +2,7 @@ package org.spacehq.packetlib.tcp;
 
 import io.netty.channel.ChannelHandlerContext;
 import java.util.Map;
+import org.spacehq.packetlib.FlagKey;
 import org.spacehq.packetlib.Server;
 import org.spacehq.packetlib.packet.PacketProtocol;
 
@@ -23,6 +24,20 @@ public class TcpServerSession
     return ret;
   }
   
+  public boolean hasFlag(FlagKey<?> key)
+  {
+    return (this.server.hasGlobalFlag(key)) || (super.hasFlag(key));
+  }
+  
+  public <T> T getFlag(FlagKey<T> key)
+  {
+    T value = this.server.getGlobalFlag(key);
+    if (value != null) {
+      return value;
+    }
+    return (T)super.getFlag(key);
+  }
+  
   public void channelActive(ChannelHandlerContext ctx)
     throws Exception
   {
@@ -1,8 +1,12 @@
 package org.spacehq.packetlib.tcp;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ConnectTimeoutException;
@@ -11,14 +15,30 @@ import io.netty.handler.timeout.ReadTimeoutException;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutException;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
 import java.net.ConnectException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.spacehq.packetlib.FlagKey;
+import org.spacehq.packetlib.FlagStore;
 import org.spacehq.packetlib.Session;
 import org.spacehq.packetlib.event.session.ConnectedEvent;
 import org.spacehq.packetlib.event.session.DisconnectedEvent;
@@ -27,26 +47,71 @@ import org.spacehq.packetlib.event.session.PacketReceivedEvent;
 import org.spacehq.packetlib.event.session.PacketSentEvent;
 import org.spacehq.packetlib.event.session.SessionEvent;
 import org.spacehq.packetlib.event.session.SessionListener;
+import org.spacehq.packetlib.event.session.WritabilityChangedEvent;
+import org.spacehq.packetlib.io.NetOutput;
+import org.spacehq.packetlib.packet.DroppablePacket;
 import org.spacehq.packetlib.packet.Packet;
+import org.spacehq.packetlib.packet.PacketHandler;
 import org.spacehq.packetlib.packet.PacketProtocol;
+import org.spacehq.packetlib.tcp.io.ByteBufNetOutput;
 
 public abstract class TcpSession
   extends SimpleChannelInboundHandler<Packet>
   implements Session
 {
+  private static final PacketHandler<?>[] NO_HANDLERS = new PacketHandler[0];
+  private static final int MAX_INBOUND_BATCH = 64;
   private String host;
   private int port;
   private PacketProtocol protocol;
   private int compressionThreshold = -1;
+  private TcpCompressionPool compressionPool = TcpCompressionPool.getDefault();
   private int connectTimeout = 30;
   private int readTimeout = 30;
   private int writeTimeout = 0;
-  private Map<String, Object> flags = new HashMap();
+  private FlagStore flags = new FlagStore();
   private List<SessionListener> listeners = new CopyOnWriteArrayList();
   private Channel channel;
   protected boolean disconnected = false;
-  private BlockingQueue<Packet> packets = new LinkedBlockingQueue();
-  private Thread packetHandleThread;
+  private Promise<Session> connectPromise = GlobalEventExecutor.INSTANCE.newPromise();
+  private Promise<Session> disconnectPromise = GlobalEventExecutor.INSTANCE.newPromise();
+  private PacketDispatcher packetDispatcher = new ThreadPacketDispatcher();
+  private Executor packetExecutor;
+  private volatile Class<?>[] packetInterests = new Class[0];
+  private volatile boolean packetFiltering = false;
+  private volatile boolean packetSentEvents = true;
+  private volatile boolean flushConsolidation = false;
+  private int writeBufferLowWaterMark = 0;
+  private int writeBufferHighWaterMark = 0;
+  private volatile TcpWritePolicy writePolicy = TcpWritePolicy.BUFFER;
+  private int inboundLowWaterMark = 256;
+  private int inboundHighWaterMark = 1024;
+  private TcpInboundQueue inboundQueue = new TcpInboundQueue(1024);
+  private boolean inboundDraining = false;
+  private boolean readPaused = false;
+  private AtomicLong readPauses = new AtomicLong();
+  private Runnable inboundTask = new Runnable()
+  {
+    public void run()
+    {
+      TcpSession.this.drainInbound();
+    }
+  };
+  private AtomicBoolean flushPending = new AtomicBoolean();
+  private Runnable flushTask = new Runnable()
+  {
+    public void run()
+    {
+      TcpSession.this.flushPending.set(false);
+      Channel channel = TcpSession.this.channel;
+      if (channel != null) {
+        channel.flush();
+      }
+    }
+  };
+  private List<ScheduledFuture<?>> scheduledTasks = new ArrayList();
+  private Map<Class<?>, PacketHandler<?>[]> packetHandlers = new LinkedHashMap();
+  private volatile Map<Class<?>, PacketHandler<?>[]> resolvedHandlers = new IdentityHashMap();
   
   public TcpSession(String host, int port, PacketProtocol protocol)
   {
@@ -62,6 +127,22 @@ public abstract class TcpSession
   
   public void connect(boolean wait) {}
   
+  public Future<Session> connectAsync()
+  {
+    connect(false);
+    return this.connectPromise;
+  }
+  
+  public Future<Session> getConnectFuture()
+  {
+    return this.connectPromise;
+  }
+  
+  public Future<Session> getDisconnectFuture()
+  {
+    return this.disconnectPromise;
+  }
+  
   public String getHost()
   {
     return this.host;
@@ -79,33 +160,55 @@ public abstract class TcpSession
   
   public Map<String, Object> getFlags()
   {
-    return new HashMap(this.flags);
+    return this.flags.toMap();
   }
   
   public boolean hasFlag(String key)
   {
-    return getFlags().containsKey(key);
+    FlagKey<Object> flag = FlagKey.find(key);
+    return (flag != null) && (hasFlag(flag));
   }
   
   public <T> T getFlag(String key)
   {
-    Object value = getFlags().get(key);
-    if (value == null) {
-      return null;
-    }
-    try
-    {
-      return (T)value;
-    }
-    catch (ClassCastException e)
-    {
-      throw new IllegalStateException("Tried to get flag \"" + key + "\" as the wrong type. Actual type: " + value.getClass().getName());
-    }
+    FlagKey<Object> flag = FlagKey.find(key);
+    return flag != null ? (T)getFlag(flag) : null;
   }
   
   public void setFlag(String key, Object value)
   {
-    this.flags.put(key, value);
+    setFlag(FlagKey.named(key), value);
+  }
+  
+  public boolean hasFlag(FlagKey<?> key)
+  {
+    return this.flags.has(key);
+  }
+  
+  public <T> T getFlag(FlagKey<T> key)
+  {
+    return (T)this.flags.get(key);
+  }
+  
+  public <T> void setFlag(FlagKey<T> key, T value)
+  {
+    this.flags.set(key, value);
+  }
+  
+  public PacketDispatcher getPacketDispatcher()
+  {
+    return this.packetDispatcher;
+  }
+  
+  public void setPacketDispatcher(PacketDispatcher dispatcher)
+  {
+    if (dispatcher == null) {
+      throw new IllegalArgumentException("Packet dispatcher cannot be null.");
+    }
+    if (this.packetExecutor != null) {
+      throw new IllegalStateException("Cannot change the packet dispatcher of an active session.");
+    }
+    this.packetDispatcher = dispatcher;
   }
   
   public List<SessionListener> getListeners()
@@ -127,6 +230,13 @@ public abstract class TcpSession
   {
     try
     {
+      if ((event instanceof PacketReceivedEvent))
+      {
+        Packet packet = ((PacketReceivedEvent)event).getPacket();
+        for (PacketHandler handler : getHandlers(packet.getClass())) {
+          handler.handle(this, packet);
+        }
+      }
       for (SessionListener listener : this.listeners) {
         event.call(listener);
       }
@@ -137,6 +247,113 @@ public abstract class TcpSession
     }
   }
   
+  public synchronized <T extends Packet> void on(Class<T> packet, PacketHandler<? super T> handler)
+  {
+    if ((packet == null) || (handler == null)) {
+      throw new IllegalArgumentException("Packet class and handler cannot be null.");
+    }
+    PacketHandler<?>[] handlers = (PacketHandler[])this.packetHandlers.get(packet);
+    if (handlers == null) {
+      handlers = NO_HANDLERS;
+    }
+    handlers = (PacketHandler[])Arrays.copyOf(handlers, handlers.length + 1);
+    handlers[(handlers.length - 1)] = handler;
+    this.packetHandlers.put(packet, handlers);
+    this.resolvedHandlers = new IdentityHashMap();
+    addPacketInterest(packet);
+  }
+  
+  public synchronized <T extends Packet> void off(Class<T> packet, PacketHandler<? super T> handler)
+  {
+    PacketHandler<?>[] handlers = (PacketHandler[])this.packetHandlers.get(packet);
+    if (handlers == null) {
+      return;
+    }
+    List<PacketHandler<?>> remaining = new ArrayList(Arrays.asList(handlers));
+    if (remaining.remove(handler))
+    {
+      if (remaining.isEmpty()) {
+        this.packetHandlers.remove(packet);
+      } else {
+        this.packetHandlers.put(packet, remaining.toArray(new PacketHandler[remaining.size()]));
+      }
+      this.resolvedHandlers = new IdentityHashMap();
+    }
+  }
+  
+  private PacketHandler<?>[] getHandlers(Class<?> packet)
+  {
+    PacketHandler<?>[] handlers = (PacketHandler[])this.resolvedHandlers.get(packet);
+    if (handlers != null) {
+      return handlers;
+    }
+    synchronized (this)
+    {
+      List<PacketHandler<?>> matching = new ArrayList();
+      for (Map.Entry<Class<?>, PacketHandler<?>[]> entry : this.packetHandlers.entrySet()) {
+        if (((Class)entry.getKey()).isAssignableFrom(packet)) {
+          for (PacketHandler<?> handler : (PacketHandler[])entry.getValue()) {
+            matching.add(handler);
+          }
+        }
+      }
+      handlers = matching.isEmpty() ? NO_HANDLERS : (PacketHandler[])matching.toArray(new PacketHandler[matching.size()]);
+      Map<Class<?>, PacketHandler<?>[]> resolved = new IdentityHashMap(this.resolvedHandlers);
+      resolved.put(packet, handlers);
+      this.resolvedHandlers = resolved;
+      return handlers;
+    }
+  }
+  
+  public Set<Class<? extends Packet>> getPacketInterests()
+  {
+    return new HashSet(Arrays.asList(this.packetInterests));
+  }
+  
+  public synchronized void addPacketInterest(Class<? extends Packet> packet)
+  {
+    if (packet == null) {
+      throw new IllegalArgumentException("Packet class cannot be null.");
+    }
+    if (Arrays.asList(this.packetInterests).contains(packet)) {
+      return;
+    }
+    Class<?>[] interests = (Class[])Arrays.copyOf(this.packetInterests, this.packetInterests.length + 1);
+    interests[(interests.length - 1)] = packet;
+    this.packetInterests = interests;
+  }
+  
+  public synchronized void removePacketInterest(Class<? extends Packet> packet)
+  {
+    List<Class<?>> interests = new ArrayList(Arrays.asList(this.packetInterests));
+    if (interests.remove(packet)) {
+      this.packetInterests = ((Class[])interests.toArray(new Class[interests.size()]));
+    }
+  }
+  
+  public boolean isPacketFiltering()
+  {
+    return this.packetFiltering;
+  }
+  
+  public void setPacketFiltering(boolean filtering)
+  {
+    this.packetFiltering = filtering;
+  }
+  
+  public boolean isInterested(Class<? extends Packet> packet)
+  {
+    if (!this.packetFiltering) {
+      return true;
+    }
+    for (Class<?> interest : this.packetInterests) {
+      if (interest.isAssignableFrom(packet)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
   public int getCompressionThreshold()
   {
     return this.compressionThreshold;
@@ -145,7 +362,7 @@ public abstract class TcpSession
   public void setCompressionThreshold(int threshold)
   {
     this.compressionThreshold = threshold;
-    if (this.channel != null) {
+    if ((this.channel != null) && (this.channel.pipeline().get("frame") == null)) {
       if (this.compressionThreshold >= 0)
       {
         if (this.channel.pipeline().get("compression") == null) {
@@ -158,6 +375,19 @@ public abstract class TcpSession
     }
   }
   
+  public TcpCompressionPool getCompressionPool()
+  {
+    return this.compressionPool;
+  }
+  
+  public void setCompressionPool(TcpCompressionPool pool)
+  {
+    if (pool == null) {
+      throw new IllegalArgumentException("Compression pool cannot be null.");
+    }
+    this.compressionPool = pool;
+  }
+  
   public int getConnectTimeout()
   {
     return this.connectTimeout;
@@ -195,12 +425,291 @@ public abstract class TcpSession
     return (this.channel != null) && (this.channel.isOpen()) && (!this.disconnected);
   }
   
-  public void send(final Packet packet)
+  public boolean isPacketSentEvents()
+  {
+    return this.packetSentEvents;
+  }
+  
+  public void setPacketSentEvents(boolean enabled)
+  {
+    this.packetSentEvents = enabled;
+  }
+  
+  public boolean isFlushConsolidation()
+  {
+    return this.flushConsolidation;
+  }
+  
+  public void setFlushConsolidation(boolean consolidate)
+  {
+    this.flushConsolidation = consolidate;
+  }
+  
+  public int getWriteBufferLowWaterMark()
   {
-    if (this.channel == null) {
+    return this.writeBufferLowWaterMark;
+  }
+  
+  public int getWriteBufferHighWaterMark()
+  {
+    return this.writeBufferHighWaterMark;
+  }
+  
+  public void setWriteBufferWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid write buffer water marks: low " + low + ", high " + high + ".");
+    }
+    this.writeBufferLowWaterMark = low;
+    this.writeBufferHighWaterMark = high;
+    if (this.channel != null) {
+      applyWriteBufferWaterMarks(this.channel);
+    }
+  }
+  
+  private void applyWriteBufferWaterMarks(Channel channel)
+  {
+    if (this.writeBufferHighWaterMark <= 0) {
       return;
     }
-    ChannelFuture future = this.channel.writeAndFlush(packet).addListener(new ChannelFutureListener()
+    ChannelConfig config = channel.config();
+    if (this.writeBufferHighWaterMark >= config.getWriteBufferLowWaterMark())
+    {
+      config.setWriteBufferHighWaterMark(this.writeBufferHighWaterMark);
+      config.setWriteBufferLowWaterMark(this.writeBufferLowWaterMark);
+    }
+    else
+    {
+      config.setWriteBufferLowWaterMark(this.writeBufferLowWaterMark);
+      config.setWriteBufferHighWaterMark(this.writeBufferHighWaterMark);
+    }
+  }
+  
+  public TcpWritePolicy getWritePolicy()
+  {
+    return this.writePolicy;
+  }
+  
+  public void setWritePolicy(TcpWritePolicy policy)
+  {
+    if (policy == null) {
+      throw new IllegalArgumentException("Write policy cannot be null.");
+    }
+    this.writePolicy = policy;
+  }
+  
+  public int getInboundQueueLowWaterMark()
+  {
+    return this.inboundLowWaterMark;
+  }
+  
+  public int getInboundQueueHighWaterMark()
+  {
+    return this.inboundHighWaterMark;
+  }
+  
+  public void setInboundQueueWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high <= 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid inbound queue water marks: low " + low + ", high " + high + ".");
+    }
+    synchronized (this.inboundQueue)
+    {
+      this.inboundLowWaterMark = low;
+      this.inboundHighWaterMark = high;
+      if ((this.readPaused) && (this.inboundQueue.size() <= low)) {
+        resumeRead();
+      }
+    }
+  }
+  
+  public int getInboundQueueDepth()
+  {
+    return this.inboundQueue.size();
+  }
+  
+  public int getInboundQueuePeak()
+  {
+    return this.inboundQueue.getPeak();
+  }
+  
+  public boolean isReadPaused()
+  {
+    synchronized (this.inboundQueue)
+    {
+      return this.readPaused;
+    }
+  }
+  
+  public long getReadPauseCount()
+  {
+    return this.readPauses.get();
+  }
+  
+  public boolean isWritable()
+  {
+    Channel channel = this.channel;
+    return (channel != null) && (channel.isWritable());
+  }
+  
+  private boolean isDropped(Packet packet)
+  {
+    return (this.writePolicy == TcpWritePolicy.DROP) && ((packet instanceof DroppablePacket)) && (!this.channel.isWritable());
+  }
+  
+  public void send(Packet packet)
+  {
+    send(packet, packet);
+  }
+  
+  public boolean canSendFrame(Packet packet)
+  {
+    Channel channel = this.channel;
+    return (channel != null) && ((channel.pipeline().get("frame") instanceof TcpFrameCodec)) && (this.protocol.hasOutgoingPacket(packet.getClass()));
+  }
+  
+  public ByteBuf encodeFrame(Packet packet)
+    throws Exception
+  {
+    Channel channel = this.channel;
+    ChannelHandler codec = channel != null ? channel.pipeline().get("frame") : null;
+    if (!(codec instanceof TcpFrameCodec)) {
+      throw new IllegalStateException("Session is not connected through a frame codec.");
+    }
+    ByteBufAllocator alloc = channel.alloc();
+    ByteBuf body = alloc.buffer();
+    try
+    {
+      NetOutput out = new ByteBufNetOutput(body);
+      this.protocol.getPacketHeader().writePacketId(out, this.protocol.getOutgoingId(packet.getClass()));
+      packet.write(out);
+      ByteBuf frame = alloc.buffer(body.readableBytes() + 8);
+      try
+      {
+        ((TcpFrameCodec)codec).writeFrame(alloc, body, frame);
+      }
+      catch (Exception e)
+      {
+        frame.release();
+        throw e;
+      }
+      return frame;
+    }
+    finally
+    {
+      body.release();
+    }
+  }
+  
+  public void sendFrame(Packet packet, ByteBuf frame)
+  {
+    send(new TcpEncodedFrame(frame.duplicate().retain()), packet);
+  }
+  
+  private void send(Object message, Packet packet)
+  {
+    if ((this.channel == null) || (isDropped(packet)))
+    {
+      ReferenceCountUtil.release(message);
+      return;
+    }
+    ChannelFuture future = write(message, packet);
+    flush(packet.isPriority());
+    if (packet.isPriority()) {
+      try
+      {
+        future.await();
+      }
+      catch (InterruptedException localInterruptedException) {}
+    }
+  }
+  
+  public void sendAll(Collection<? extends Packet> packets)
+  {
+    if ((this.channel == null) || (packets.isEmpty())) {
+      return;
+    }
+    List<ChannelFuture> priority = null;
+    for (Packet packet : packets)
+    {
+      if (isDropped(packet)) {
+        continue;
+      }
+      ChannelFuture future = write(packet, packet);
+      if (packet.isPriority())
+      {
+        if (priority == null) {
+          priority = new ArrayList();
+        }
+        priority.add(future);
+      }
+    }
+    flush(priority != null);
+    if (priority != null) {
+      try
+      {
+        for (ChannelFuture future : priority) {
+          future.await();
+        }
+      }
+      catch (InterruptedException localInterruptedException) {}
+    }
+  }
+  
+  public ScheduledFuture<?> schedule(Runnable task, long delay, long period)
+  {
+    return schedule(task, delay, period, TimeUnit.MILLISECONDS);
+  }
+  
+  public ScheduledFuture<?> schedule(Runnable task, long delay, long period, TimeUnit unit)
+  {
+    Channel channel = this.channel;
+    if ((channel == null) || (this.disconnected)) {
+      throw new IllegalStateException("Cannot schedule tasks on a session that is not connected.");
+    }
+    final ScheduledFuture<?> future = period > 0L ? channel.eventLoop().scheduleAtFixedRate(task, delay, period, unit) : channel.eventLoop().schedule(task, delay, unit);
+    synchronized (this.scheduledTasks)
+    {
+      if (this.disconnected)
+      {
+        future.cancel(false);
+        return future;
+      }
+      this.scheduledTasks.add(future);
+    }
+    future.addListener(new FutureListener<Object>()
+    {
+      public void operationComplete(Future<Object> done)
+        throws Exception
+      {
+        synchronized (TcpSession.this.scheduledTasks)
+        {
+          TcpSession.this.scheduledTasks.remove(future);
+        }
+      }
+    });
+    return future;
+  }
+  
+  private void cancelScheduledTasks()
+  {
+    List<ScheduledFuture<?>> tasks;
+    synchronized (this.scheduledTasks)
+    {
+      tasks = new ArrayList(this.scheduledTasks);
+      this.scheduledTasks.clear();
+    }
+    for (ScheduledFuture<?> task : tasks) {
+      task.cancel(false);
+    }
+  }
+  
+  private ChannelFuture write(Object message, final Packet packet)
+  {
+    if ((!this.packetSentEvents) && (!packet.isPriority())) {
+      return this.channel.write(message, this.channel.voidPromise());
+    }
+    return this.channel.write(message).addListener(new ChannelFutureListener()
     {
       public void operationComplete(ChannelFuture future)
         throws Exception
@@ -212,12 +721,21 @@ public abstract class TcpSession
         }
       }
     });
-    if (packet.isPriority()) {
+  }
+  
+  private void flush(boolean immediate)
+  {
+    if ((immediate) || (!this.flushConsolidation)) {
+      this.channel.flush();
+    } else if (this.flushPending.compareAndSet(false, true)) {
       try
       {
-        future.await();
+        this.channel.eventLoop().execute(this.flushTask);
+      }
+      catch (RejectedExecutionException e)
+      {
+        this.flushPending.set(false);
       }
-      catch (InterruptedException localInterruptedException) {}
     }
   }
   
@@ -242,11 +760,19 @@ public abstract class TcpSession
       return;
     }
     this.disconnected = true;
-    if (this.packetHandleThread != null)
+    this.connectPromise.tryFailure(cause != null ? cause : new IllegalStateException(reason != null ? reason : "Connection closed."));
+    if (this.packetExecutor != null)
     {
-      this.packetHandleThread.interrupt();
-      this.packetHandleThread = null;
+      this.packetDispatcher.releaseSessionExecutor(this.packetExecutor);
+      this.packetExecutor = null;
     }
+    synchronized (this.inboundQueue)
+    {
+      this.inboundQueue.clear();
+      this.inboundDraining = false;
+      this.readPaused = false;
+    }
+    cancelScheduledTasks();
     if ((this.channel != null) && (this.channel.isOpen()))
     {
       callEvent(new DisconnectingEvent(this, reason, cause));
@@ -256,6 +782,7 @@ public abstract class TcpSession
           throws Exception
         {
           TcpSession.this.callEvent(new DisconnectedEvent(TcpSession.this, reason != null ? reason : "Connection closed.", cause));
+          TcpSession.this.disconnectPromise.trySuccess(TcpSession.this);
         }
       });
       if (wait) {
@@ -269,6 +796,7 @@ public abstract class TcpSession
     else
     {
       callEvent(new DisconnectedEvent(this, reason != null ? reason : "Connection closed.", cause));
+      this.disconnectPromise.trySuccess(this);
     }
     this.channel = null;
   }
@@ -326,27 +854,11 @@ public abstract class TcpSession
       return;
     }
     this.channel = ctx.channel();
-    
-    this.packetHandleThread = new Thread(new Runnable()
-    {
-      public void run()
-      {
-        try
-        {
-          Packet packet;
-          while ((packet = (Packet)TcpSession.this.packets.take()) != null) {
-            TcpSession.this.callEvent(new PacketReceivedEvent(TcpSession.this, packet));
-          }
-        }
-        catch (InterruptedException localInterruptedException) {}catch (Throwable t)
-        {
-          TcpSession.this.exceptionCaught(null, t);
-        }
-      }
-    });
-    this.packetHandleThread.start();
+    applyWriteBufferWaterMarks(this.channel);
+    this.packetExecutor = this.packetDispatcher.newSessionExecutor(this);
     
     callEvent(new ConnectedEvent(this));
+    this.connectPromise.trySuccess(this);
   }
   
   public void channelInactive(ChannelHandlerContext ctx)
@@ -357,6 +869,20 @@ public abstract class TcpSession
     }
   }
   
+  public void channelWritabilityChanged(ChannelHandlerContext ctx)
+    throws Exception
+  {
+    if (ctx.channel() == this.channel)
+    {
+      boolean writable = this.channel.isWritable();
+      callEvent(new WritabilityChangedEvent(this, writable));
+      if ((!writable) && (this.writePolicy == TcpWritePolicy.DISCONNECT)) {
+        disconnect("Write buffer limit exceeded.");
+      }
+    }
+    super.channelWritabilityChanged(ctx);
+  }
+  
   public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
   {
     String message = null;
@@ -375,8 +901,82 @@ public abstract class TcpSession
   protected void messageReceived(ChannelHandlerContext ctx, Packet packet)
     throws Exception
   {
-    if (!packet.isPriority()) {
-      this.packets.add(packet);
+    Executor executor = this.packetExecutor;
+    if ((packet.isPriority()) || (executor == null)) {
+      return;
+    }
+    synchronized (this.inboundQueue)
+    {
+      if ((this.inboundQueue.offer(packet) >= this.inboundHighWaterMark) && (!this.readPaused))
+      {
+        this.readPaused = true;
+        this.readPauses.incrementAndGet();
+        ctx.channel().config().setAutoRead(false);
+      }
+      if (this.inboundDraining) {
+        return;
+      }
+      this.inboundDraining = true;
+    }
+    scheduleInbound(executor);
+  }
+  
+  private void scheduleInbound(Executor executor)
+  {
+    try
+    {
+      executor.execute(this.inboundTask);
+    }
+    catch (RejectedExecutionException e)
+    {
+      synchronized (this.inboundQueue)
+      {
+        this.inboundQueue.clear();
+        this.inboundDraining = false;
+      }
+    }
+  }
+  
+  private void drainInbound()
+  {
+    for (int count = 0; count < MAX_INBOUND_BATCH; count++)
+    {
+      Packet packet;
+      synchronized (this.inboundQueue)
+      {
+        packet = this.inboundQueue.poll();
+        if (packet == null)
+        {
+          this.inboundDraining = false;
+          return;
+        }
+        if ((this.readPaused) && (this.inboundQueue.size() <= this.inboundLowWaterMark)) {
+          resumeRead();
+        }
+      }
+      callEvent(new PacketReceivedEvent(this, packet));
+    }
+    Executor executor = this.packetExecutor;
+    if (executor != null)
+    {
+      scheduleInbound(executor);
+    }
+    else
+    {
+      synchronized (this.inboundQueue)
+      {
+        this.inboundQueue.clear();
+        this.inboundDraining = false;
+      }
+    }
+  }
+  
+  private void resumeRead()
+  {
+    this.readPaused = false;
+    Channel channel = this.channel;
+    if (channel != null) {
+      channel.config().setAutoRead(true);
     }
   }
 }
@@ -11,6 +11,16 @@ public class TcpSessionFactory
   implements SessionFactory
 {
   private Proxy clientProxy;
+  private SharedEventLoopGroup sharedGroup;
+  private TcpTransport transport = TcpTransport.getDefault();
+  private PacketDispatcher packetDispatcher;
+  private TcpCompressionPool compressionPool;
+  private TcpSrvResolver srvResolver;
+  private int writeBufferLowWaterMark = 0;
+  private int writeBufferHighWaterMark = 0;
+  private TcpWritePolicy writePolicy;
+  private int inboundQueueLowWaterMark = 0;
+  private int inboundQueueHighWaterMark = 0;
   
   public TcpSessionFactory() {}
   
@@ -19,13 +29,147 @@ public class TcpSessionFactory
     this.clientProxy = clientProxy;
   }
   
+  public TcpSessionFactory(SharedEventLoopGroup sharedGroup)
+  {
+    this.sharedGroup = sharedGroup;
+  }
+  
+  public TcpSessionFactory(Proxy clientProxy, SharedEventLoopGroup sharedGroup)
+  {
+    this.clientProxy = clientProxy;
+    this.sharedGroup = sharedGroup;
+  }
+  
+  public SharedEventLoopGroup getSharedGroup()
+  {
+    return this.sharedGroup;
+  }
+  
+  public TcpTransport getTransport()
+  {
+    return this.sharedGroup != null ? this.sharedGroup.getTransport() : this.transport;
+  }
+  
+  public void setTransport(TcpTransport transport)
+  {
+    if (transport == null) {
+      throw new IllegalArgumentException("Transport cannot be null.");
+    }
+    this.transport = transport;
+  }
+  
+  public PacketDispatcher getPacketDispatcher()
+  {
+    return this.packetDispatcher;
+  }
+  
+  public void setPacketDispatcher(PacketDispatcher dispatcher)
+  {
+    this.packetDispatcher = dispatcher;
+  }
+  
+  public TcpCompressionPool getCompressionPool()
+  {
+    return this.compressionPool;
+  }
+  
+  public void setCompressionPool(TcpCompressionPool pool)
+  {
+    this.compressionPool = pool;
+  }
+  
+  public TcpSrvResolver getSrvResolver()
+  {
+    return this.srvResolver;
+  }
+  
+  public void setSrvResolver(TcpSrvResolver resolver)
+  {
+    this.srvResolver = resolver;
+  }
+  
+  public int getWriteBufferLowWaterMark()
+  {
+    return this.writeBufferLowWaterMark;
+  }
+  
+  public int getWriteBufferHighWaterMark()
+  {
+    return this.writeBufferHighWaterMark;
+  }
+  
+  public void setWriteBufferWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid write buffer water marks: low " + low + ", high " + high + ".");
+    }
+    this.writeBufferLowWaterMark = low;
+    this.writeBufferHighWaterMark = high;
+  }
+  
+  public TcpWritePolicy getWritePolicy()
+  {
+    return this.writePolicy;
+  }
+  
+  public void setWritePolicy(TcpWritePolicy policy)
+  {
+    this.writePolicy = policy;
+  }
+  
+  public int getInboundQueueLowWaterMark()
+  {
+    return this.inboundQueueLowWaterMark;
+  }
+  
+  public int getInboundQueueHighWaterMark()
+  {
+    return this.inboundQueueHighWaterMark;
+  }
+  
+  public void setInboundQueueWaterMarks(int low, int high)
+  {
+    if ((low < 0) || (high <= 0) || (high < low)) {
+      throw new IllegalArgumentException("Invalid inbound queue water marks: low " + low + ", high " + high + ".");
+    }
+    this.inboundQueueLowWaterMark = low;
+    this.inboundQueueHighWaterMark = high;
+  }
+  
   public Session createClientSession(Client client)
   {
-    return new TcpClientSession(client.getHost(), client.getPort(), client.getPacketProtocol(), client, this.clientProxy);
+    TcpClientSession session = new TcpClientSession(client.getHost(), client.getPort(), client.getPacketProtocol(), client, this.clientProxy, getTransport(), this.sharedGroup);
+    if (this.packetDispatcher != null) {
+      session.setPacketDispatcher(this.packetDispatcher);
+    }
+    if (this.compressionPool != null) {
+      session.setCompressionPool(this.compressionPool);
+    }
+    if (this.srvResolver != null) {
+      session.setSrvResolver(this.srvResolver);
+    }
+    if (this.writeBufferHighWaterMark > 0) {
+      session.setWriteBufferWaterMarks(this.writeBufferLowWaterMark, this.writeBufferHighWaterMark);
+    }
+    if (this.writePolicy != null) {
+      session.setWritePolicy(this.writePolicy);
+    }
+    if (this.inboundQueueHighWaterMark > 0) {
+      session.setInboundQueueWaterMarks(this.inboundQueueLowWaterMark, this.inboundQueueHighWaterMark);
+    }
+    return session;
   }
   
   public ConnectionListener createServerListener(Server server)
   {
-    return new TcpConnectionListener(server.getHost(), server.getPort(), server);
+    TcpConnectionListener listener = new TcpConnectionListener(server.getHost(), server.getPort(), server, this.transport);
+    listener.setPacketDispatcher(this.packetDispatcher);
+    listener.setCompressionPool(this.compressionPool);
+    listener.setWriteBufferWaterMarks(this.writeBufferLowWaterMark, this.writeBufferHighWaterMark);
+    listener.setWritePolicy(this.writePolicy);
+    if (this.inboundQueueHighWaterMark > 0) {
+      listener.setInboundQueueWaterMarks(this.inboundQueueLowWaterMark, this.inboundQueueHighWaterMark);
+    }
+    return listener;
   }
 }
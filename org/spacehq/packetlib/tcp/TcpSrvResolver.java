@@ -0,0 +1,206 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsResource;
+import io.netty.handler.codec.dns.DnsResponse;
+import io.netty.handler.codec.dns.DnsType;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsServerAddresses;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ThreadPerTaskExecutor;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TcpSrvResolver
+{
+  private static TcpSrvResolver defaultResolver;
+  private EventLoopGroup group;
+  private DnsNameResolver resolver;
+  private Random random = new Random();
+  
+  public TcpSrvResolver()
+  {
+    this(DnsServerAddresses.defaultAddresses());
+  }
+  
+  public TcpSrvResolver(Iterable<InetSocketAddress> nameServers)
+  {
+    this(TcpTransport.getDefault(), nameServers);
+  }
+  
+  public TcpSrvResolver(TcpTransport transport, Iterable<InetSocketAddress> nameServers)
+  {
+    this.group = transport.newEventLoopGroup(1, new ThreadPerTaskExecutor(new DefaultThreadFactory(TcpSrvResolver.class, true)));
+    this.resolver = new DnsNameResolver(this.group.next(), transport.getDatagramChannel(), DnsServerAddresses.sequential(nameServers));
+    this.resolver.setTtl(0, 3600);
+    this.resolver.setNegativeTtl(60);
+  }
+  
+  public static synchronized TcpSrvResolver getDefault()
+  {
+    if (defaultResolver == null) {
+      defaultResolver = new TcpSrvResolver();
+    }
+    return defaultResolver;
+  }
+  
+  public DnsNameResolver getResolver()
+  {
+    return this.resolver;
+  }
+  
+  public Future<InetSocketAddress> resolve(String service, final String host, final int port)
+  {
+    final Promise<InetSocketAddress> promise = this.group.next().newPromise();
+    if ((NetUtil.isValidIpV4Address(host)) || (NetUtil.isValidIpV6Address(host))) {
+      return promise.setSuccess(new InetSocketAddress(host, port));
+    }
+    final String name = service + "._tcp." + host;
+    this.resolver.query(new DnsQuestion(name, DnsType.SRV)).addListener(new FutureListener<DnsResponse>()
+    {
+      public void operationComplete(Future<DnsResponse> future)
+        throws Exception
+      {
+        if (!future.isSuccess())
+        {
+          TcpSrvResolver.this.resolveAddress(host, port, promise);
+          return;
+        }
+        DnsResponse response = (DnsResponse)future.getNow();
+        try
+        {
+          InetSocketAddress address = TcpSrvResolver.this.select(response.answers());
+          if (address != null) {
+            TcpSrvResolver.this.resolveAddress(address.getHostName(), address.getPort(), promise);
+          } else {
+            TcpSrvResolver.this.resolveAddress(host, port, promise);
+          }
+        }
+        catch (Throwable t)
+        {
+          promise.setFailure(t);
+        }
+        finally
+        {
+          response.release();
+        }
+      }
+    });
+    return promise;
+  }
+  
+  private void resolveAddress(String host, int port, final Promise<InetSocketAddress> promise)
+  {
+    if ((NetUtil.isValidIpV4Address(host)) || (NetUtil.isValidIpV6Address(host)))
+    {
+      promise.setSuccess(new InetSocketAddress(host, port));
+      return;
+    }
+    if (host.equalsIgnoreCase("localhost"))
+    {
+      promise.setSuccess(new InetSocketAddress("127.0.0.1", port));
+      return;
+    }
+    this.resolver.resolve(host, port).addListener(new FutureListener<InetSocketAddress>()
+    {
+      public void operationComplete(Future<InetSocketAddress> future)
+        throws Exception
+      {
+        if (future.isSuccess()) {
+          promise.setSuccess(future.getNow());
+        } else {
+          promise.setFailure(future.cause());
+        }
+      }
+    });
+  }
+  
+  public void close()
+  {
+    this.resolver.close();
+    this.group.shutdownGracefully();
+  }
+  
+  private InetSocketAddress select(List<DnsResource> answers)
+  {
+    List<DnsResource> records = new ArrayList();
+    int priority = Integer.MAX_VALUE;
+    int weights = 0;
+    for (DnsResource answer : answers) {
+      if (answer.type() == DnsType.SRV)
+      {
+        ByteBuf content = answer.content();
+        int recordPriority = content.getUnsignedShort(content.readerIndex());
+        if (recordPriority < priority)
+        {
+          records.clear();
+          priority = recordPriority;
+          weights = 0;
+        }
+        if (recordPriority == priority)
+        {
+          records.add(answer);
+          weights += content.getUnsignedShort(content.readerIndex() + 2);
+        }
+      }
+    }
+    if (records.isEmpty()) {
+      return null;
+    }
+    DnsResource record = (DnsResource)records.get(0);
+    if (weights > 0)
+    {
+      int target = this.random.nextInt(weights);
+      for (DnsResource candidate : records)
+      {
+        ByteBuf content = candidate.content();
+        target -= content.getUnsignedShort(content.readerIndex() + 2);
+        if (target < 0)
+        {
+          record = candidate;
+          break;
+        }
+      }
+    }
+    else
+    {
+      record = (DnsResource)records.get(this.random.nextInt(records.size()));
+    }
+    ByteBuf content = record.content();
+    return InetSocketAddress.createUnresolved(readName(content, content.readerIndex() + 6), content.getUnsignedShort(content.readerIndex() + 4));
+  }
+  
+  private static String readName(ByteBuf buf, int index)
+  {
+    StringBuilder name = new StringBuilder();
+    for (int steps = 0; steps < 128; steps++)
+    {
+      int length = buf.getUnsignedByte(index);
+      if ((length & 0xC0) == 192)
+      {
+        index = (length & 0x3F) << 8 | buf.getUnsignedByte(index + 1);
+      }
+      else
+      {
+        if (length == 0) {
+          return name.toString();
+        }
+        if (name.length() > 0) {
+          name.append('.');
+        }
+        name.append(buf.toString(index + 1, length, CharsetUtil.UTF_8));
+        index += length + 1;
+      }
+    }
+    throw new IllegalStateException("Malformed SRV target name.");
+  }
+}
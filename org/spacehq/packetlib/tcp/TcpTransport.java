@@ -0,0 +1,87 @@
+package org.spacehq.packetlib.tcp;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelConfig;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.internal.PlatformDependent;
+import java.util.concurrent.Executor;
+
+public enum TcpTransport
+{
+  NIO,  EPOLL;
+  
+  private TcpTransport() {}
+  
+  public static TcpTransport getDefault()
+  {
+    try
+    {
+      if ((Epoll.isAvailable()) && (PlatformDependent.hasUnsafe())) {
+        return EPOLL;
+      }
+    }
+    catch (Throwable localThrowable) {}
+    return NIO;
+  }
+  
+  public EventLoopGroup newEventLoopGroup(int threads)
+  {
+    if (this == EPOLL) {
+      return new EpollEventLoopGroup(threads);
+    }
+    return new NioEventLoopGroup(threads);
+  }
+  
+  public EventLoopGroup newEventLoopGroup(int threads, Executor executor)
+  {
+    if (this == EPOLL) {
+      return new EpollEventLoopGroup(threads, executor);
+    }
+    return new NioEventLoopGroup(threads, executor);
+  }
+  
+  public Class<? extends SocketChannel> getSocketChannel()
+  {
+    if (this == EPOLL) {
+      return EpollSocketChannel.class;
+    }
+    return NioSocketChannel.class;
+  }
+  
+  public Class<? extends ServerSocketChannel> getServerSocketChannel()
+  {
+    if (this == EPOLL) {
+      return EpollServerSocketChannel.class;
+    }
+    return NioServerSocketChannel.class;
+  }
+  
+  public Class<? extends DatagramChannel> getDatagramChannel()
+  {
+    if (this == EPOLL) {
+      return EpollDatagramChannel.class;
+    }
+    return NioDatagramChannel.class;
+  }
+  
+  public void configure(Channel channel)
+  {
+    if ((this == EPOLL) && ((channel.config() instanceof EpollChannelConfig))) {
+      channel.config().setOption(EpollChannelOption.EPOLL_MODE, EpollMode.EDGE_TRIGGERED);
+    }
+  }
+}
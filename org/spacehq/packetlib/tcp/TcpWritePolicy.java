@@ -0,0 +1,8 @@
+package org.spacehq.packetlib.tcp;
+
+public enum TcpWritePolicy
+{
+  BUFFER,  DROP,  DISCONNECT;
+  
+  private TcpWritePolicy() {}
+}
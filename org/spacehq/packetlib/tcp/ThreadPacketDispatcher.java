@@ -0,0 +1,41 @@
+package org.spacehq.packetlib.tcp;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.spacehq.packetlib.Session;
+
+public class ThreadPacketDispatcher
+  implements PacketDispatcher
+{
+  private ThreadFactory threadFactory;
+  
+  public ThreadPacketDispatcher()
+  {
+    this(Executors.defaultThreadFactory());
+  }
+  
+  public ThreadPacketDispatcher(ThreadFactory threadFactory)
+  {
+    if (threadFactory == null) {
+      throw new IllegalArgumentException("Thread factory cannot be null.");
+    }
+    this.threadFactory = threadFactory;
+  }
+  
+  public ThreadFactory getThreadFactory()
+  {
+    return this.threadFactory;
+  }
+  
+  public Executor newSessionExecutor(Session session)
+  {
+    return Executors.newSingleThreadExecutor(this.threadFactory);
+  }
+  
+  public void releaseSessionExecutor(Executor executor)
+  {
+    ((ExecutorService)executor).shutdownNow();
+  }
+}
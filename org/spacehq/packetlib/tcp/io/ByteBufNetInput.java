@@ -1,14 +1,17 @@
 package org.spacehq.packetlib.tcp.io;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
 import java.io.IOException;
 import java.util.UUID;
 import org.spacehq.packetlib.io.NetInput;
+import org.spacehq.packetlib.io.StringCache;
 
 public class ByteBufNetInput
   implements NetInput
 {
   private ByteBuf buf;
+  private byte[] stringBytes;
   
   public ByteBufNetInput(ByteBuf buf)
   {
@@ -59,6 +62,51 @@ public class ByteBufNetInput
   
   public int readVarInt()
     throws IOException
+  {
+    int index = this.buf.readerIndex();
+    if ((!this.buf.hasArray()) || (this.buf.writerIndex() - index < 5)) {
+      return readVarIntSlow();
+    }
+    byte[] array = this.buf.array();
+    int offset = this.buf.arrayOffset() + index;
+    int b = array[offset];
+    if (b >= 0)
+    {
+      this.buf.readerIndex(index + 1);
+      return b;
+    }
+    int value = b & 0x7F;
+    b = array[(offset + 1)];
+    if (b >= 0)
+    {
+      this.buf.readerIndex(index + 2);
+      return value | b << 7;
+    }
+    value |= (b & 0x7F) << 7;
+    b = array[(offset + 2)];
+    if (b >= 0)
+    {
+      this.buf.readerIndex(index + 3);
+      return value | b << 14;
+    }
+    value |= (b & 0x7F) << 14;
+    b = array[(offset + 3)];
+    if (b >= 0)
+    {
+      this.buf.readerIndex(index + 4);
+      return value | b << 21;
+    }
+    value |= (b & 0x7F) << 21;
+    b = array[(offset + 4)];
+    if (b < 0) {
+      throw new IOException("VarInt too long (length must be <= 5)");
+    }
+    this.buf.readerIndex(index + 5);
+    return value | b << 28;
+  }
+  
+  private int readVarIntSlow()
+    throws IOException
   {
     int value = 0;
     int size = 0;
@@ -66,7 +114,7 @@ public class ByteBufNetInput
     while (((b = readByte()) & 0x80) == 128)
     {
       value |= (b & 0x7F) << size++ * 7;
-      if (size > 5) {
+      if (size >= 5) {
         throw new IOException("VarInt too long (length must be <= 5)");
       }
     }
@@ -82,17 +130,24 @@ public class ByteBufNetInput
   public long readVarLong()
     throws IOException
   {
-    int value = 0;
+    int start = this.buf.readerIndex();
+    int end = this.buf.writerIndex();
+    long value = 0L;
     int size = 0;
     int b;
-    while (((b = readByte()) & 0x80) == 128)
+    do
     {
-      value |= (b & 0x7F) << size++ * 7;
-      if (size > 10) {
+      if (size >= 10) {
         throw new IOException("VarLong too long (length must be <= 10)");
       }
-    }
-    return value | (b & 0x7F) << size * 7;
+      if (start + size >= end) {
+        throw new IndexOutOfBoundsException("VarLong exceeds readable bytes (" + (end - start) + ")");
+      }
+      b = this.buf.getByte(start + size);
+      value |= (long)(b & 0x7F) << size++ * 7;
+    } while (b < 0);
+    this.buf.readerIndex(start + size);
+    return value;
   }
   
   public float readFloat()
@@ -247,8 +302,27 @@ public class ByteBufNetInput
     throws IOException
   {
     int length = readVarInt();
-    byte[] bytes = readBytes(length);
-    return new String(bytes, "UTF-8");
+    if (length < 0) {
+      throw new IOException("String cannot have length less than 0.");
+    }
+    StringCache cache = StringCache.getDefault();
+    if (this.buf.hasArray())
+    {
+      int index = this.buf.readerIndex();
+      this.buf.skipBytes(length);
+      return cache.decode(this.buf.array(), this.buf.arrayOffset() + index, length);
+    }
+    if (length <= cache.getMaxLength())
+    {
+      if (this.stringBytes == null) {
+        this.stringBytes = new byte[cache.getMaxLength()];
+      }
+      this.buf.readBytes(this.stringBytes, 0, length);
+      return cache.decode(this.stringBytes, 0, length);
+    }
+    String value = this.buf.toString(this.buf.readerIndex(), length, CharsetUtil.UTF_8);
+    this.buf.skipBytes(length);
+    return value;
   }
   
   public UUID readUUID()